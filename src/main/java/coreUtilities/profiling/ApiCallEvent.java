@@ -0,0 +1,34 @@
+package coreUtilities.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one ApiUtil request; the event duration is the
+ * round trip.
+ */
+@Name("yaksha.ApiCall")
+@Label("API Call")
+@Category({ "Yaksha", "API" })
+@Description("HTTP request sent through RestAssured")
+@StackTrace(false)
+public class ApiCallEvent extends jdk.jfr.Event {
+
+	@Label("Method")
+	public String method;
+
+	@Label("Endpoint")
+	public String endpoint;
+
+	@Label("Status Code")
+	public int statusCode;
+
+	@Label("Response Size")
+	@DataAmount
+	public long bytes;
+
+}
@@ -0,0 +1,47 @@
+package coreUtilities.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one source or response validation done by the
+ * test code validator.
+ */
+@Name("yaksha.CodeValidation")
+@Label("Code Validation")
+@Category({ "Yaksha", "Test" })
+@Description("TestCodeValidator check")
+public class CodeValidationEvent extends jdk.jfr.Event {
+
+	@Label("Check")
+	public String check;
+
+	@Label("Target")
+	public String target;
+
+	@Label("Valid")
+	public boolean valid;
+
+	/**
+	 * This method ends the event, commits it when recording is enabled and
+	 * passes the validation result through.
+	 * 
+	 * @param check  - {@link String} kind of validation
+	 * @param target - {@link String} method name validated
+	 * @param valid  - validation result
+	 * @return the given validation result
+	 */
+	public boolean finish(String check, String target, boolean valid) {
+		end();
+		if (shouldCommit()) {
+			this.check = check;
+			this.target = target;
+			this.valid = valid;
+			commit();
+		}
+		return valid;
+	}
+
+}
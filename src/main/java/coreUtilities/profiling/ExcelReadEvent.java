@@ -0,0 +1,43 @@
+package coreUtilities.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one test data sheet read.
+ */
+@Name("yaksha.ExcelRead")
+@Label("Excel Read")
+@Category({ "Yaksha", "Test Data" })
+@Description("FileOperations.readExcelPOI call")
+public class ExcelReadEvent extends jdk.jfr.Event {
+
+	@Label("File")
+	public String file;
+
+	@Label("Sheet")
+	public String sheet;
+
+	@Label("Rows")
+	public int rows;
+
+	/**
+	 * This method ends the event and commits it when recording is enabled.
+	 * 
+	 * @param file  - {@link String} workbook path
+	 * @param sheet - {@link String} sheet name
+	 * @param rows  - number of key/value rows read
+	 */
+	public void finish(String file, String sheet, int rows) {
+		end();
+		if (shouldCommit()) {
+			this.file = file;
+			this.sheet = sheet;
+			this.rows = rows;
+			commit();
+		}
+	}
+
+}
@@ -0,0 +1,172 @@
+package coreUtilities.profiling;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Turns a recording made with yaksha.jfc into a per test breakdown: time spent
+ * in API calls, Excel reads, code validation and lock waits, and the sampled
+ * allocations, each attributed to the test running on the same thread at the
+ * time. Allocations come from jdk.ObjectAllocationSample (JDK 16+); a recording
+ * without samples falls back to the TLAB allocation events.
+ */
+public class JfrAnalyzer {
+
+	private final List<TestWindow> tests = new ArrayList<TestWindow>();
+
+	/**
+	 * This method reads a recording and attributes its events to tests.
+	 * 
+	 * @param recording - {@link Path} of the .jfr file
+	 * @return {@link JfrAnalyzer} holding the breakdown
+	 * @throws IOException when the recording cannot be read
+	 */
+	public static JfrAnalyzer analyze(Path recording) throws IOException {
+		List<RecordedEvent> events = RecordingFile.readAllEvents(recording);
+		JfrAnalyzer analyzer = new JfrAnalyzer();
+		Map<Long, List<TestWindow>> testsByThread = new HashMap<Long, List<TestWindow>>();
+		boolean sampled = false;
+		for (RecordedEvent event : events) {
+			sampled |= "jdk.ObjectAllocationSample".equals(event.getEventType().getName());
+			if ("yaksha.TestExecution".equals(event.getEventType().getName()) && event.getThread() != null) {
+				TestWindow test = new TestWindow(event);
+				analyzer.tests.add(test);
+				testsByThread.computeIfAbsent(event.getThread().getJavaThreadId(), id -> new ArrayList<TestWindow>())
+						.add(test);
+			}
+		}
+		for (RecordedEvent event : events) {
+			RecordedThread thread = event.getThread();
+			if (thread == null) {
+				continue;
+			}
+			TestWindow test = find(testsByThread.get(thread.getJavaThreadId()), event.getStartTime());
+			if (test != null) {
+				test.add(event, sampled);
+			}
+		}
+		return analyzer;
+	}
+
+	private static TestWindow find(List<TestWindow> tests, Instant time) {
+		if (tests != null) {
+			for (TestWindow test : tests) {
+				if (!time.isBefore(test.start) && !time.isAfter(test.end)) {
+					return test;
+				}
+			}
+		}
+		return null;
+	}
+
+	public void print() {
+		print(System.out);
+	}
+
+	public void print(PrintStream out) {
+		out.println(String.format("%-50s %-8s %8s %10s %8s %8s %8s %8s %10s  %s", "TEST", "STATUS", "TOTAL ms",
+				"API ms(n)", "EXCEL ms", "VALID ms", "LOCK ms", "OTHER ms", "ALLOC MB", "TOP ALLOCATION"));
+		for (TestWindow test : tests) {
+			long other = test.total() - test.apiMillis - test.excelMillis - test.validationMillis - test.lockMillis;
+			out.println(String.format("%-50s %-8s %8d %6d(%2d) %8d %8d %8d %8d %10.1f  %s", test.name, test.status,
+					test.total(), test.apiMillis, test.apiCalls, test.excelMillis, test.validationMillis,
+					test.lockMillis, Math.max(0, other), test.allocatedBytes / (1024.0 * 1024.0), test.topAllocation()));
+		}
+	}
+
+	private static class TestWindow {
+		private final String name;
+		private final String status;
+		private final Instant start;
+		private final Instant end;
+		private final Map<String, Long> allocationsByClass = new HashMap<String, Long>();
+		private long apiMillis;
+		private int apiCalls;
+		private long excelMillis;
+		private long validationMillis;
+		private long lockMillis;
+		private long allocatedBytes;
+
+		private TestWindow(RecordedEvent event) {
+			this.name = event.getString("testName");
+			this.status = event.getString("status");
+			this.start = event.getStartTime();
+			this.end = event.getEndTime();
+		}
+
+		private long total() {
+			return Duration.between(start, end).toMillis();
+		}
+
+		private void add(RecordedEvent event, boolean sampled) {
+			long millis = event.getDuration().toMillis();
+			switch (event.getEventType().getName()) {
+			case "yaksha.ApiCall":
+				apiMillis += millis;
+				apiCalls++;
+				break;
+			case "yaksha.ExcelRead":
+				excelMillis += millis;
+				break;
+			case "yaksha.CodeValidation":
+				validationMillis += millis;
+				break;
+			case "jdk.JavaMonitorEnter":
+			case "jdk.JavaMonitorWait":
+			case "jdk.ThreadPark":
+				lockMillis += millis;
+				break;
+			case "jdk.ObjectAllocationSample":
+				allocated(event, event.getLong("weight"));
+				break;
+			case "jdk.ObjectAllocationInNewTLAB":
+				if (!sampled) {
+					allocated(event, event.getLong("tlabSize"));
+				}
+				break;
+			case "jdk.ObjectAllocationOutsideTLAB":
+				if (!sampled) {
+					allocated(event, event.getLong("allocationSize"));
+				}
+				break;
+			default:
+				break;
+			}
+		}
+
+		private void allocated(RecordedEvent event, long bytes) {
+			allocatedBytes += bytes;
+			allocationsByClass.merge(event.getClass("objectClass").getName(), bytes, Long::sum);
+		}
+
+		private String topAllocation() {
+			String top = "";
+			long topBytes = 0;
+			for (Map.Entry<String, Long> entry : allocationsByClass.entrySet()) {
+				if (entry.getValue() > topBytes) {
+					top = entry.getKey();
+					topBytes = entry.getValue();
+				}
+			}
+			return top;
+		}
+	}
+
+	// Usage: JfrAnalyzer <recording.jfr>
+	public static void main(String[] args) throws IOException {
+		analyze(Paths.get(args[0])).print();
+	}
+
+}
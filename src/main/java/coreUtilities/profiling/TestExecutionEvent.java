@@ -0,0 +1,39 @@
+package coreUtilities.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning one test method from start to result, emitted
+ * on the test thread so the other events of the test fall inside it.
+ */
+@Name("yaksha.TestExecution")
+@Label("Test Execution")
+@Category({ "Yaksha", "Test" })
+@Description("TestNG test method from start to result")
+@StackTrace(false)
+public class TestExecutionEvent extends jdk.jfr.Event {
+
+	@Label("Test")
+	public String testName;
+
+	@Label("Status")
+	public String status;
+
+	/**
+	 * This method ends the event and commits it when recording is enabled.
+	 * 
+	 * @param status - {@link String} PASSED, FAILED or SKIPPED
+	 */
+	public void finish(String status) {
+		end();
+		if (shouldCommit()) {
+			this.status = status;
+			commit();
+		}
+	}
+
+}
@@ -0,0 +1,154 @@
+package coreUtilities.testlisteners;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestResult;
+
+import coreUtilities.testutils.LatencyBudget;
+import coreUtilities.testutils.LatencyBudgetExceededException;
+import coreUtilities.testutils.ResultsJournalReader.Stats;
+import rest.ApiCallFilter;
+import rest.ApiCallListener;
+
+/**
+ * Enforces {@link LatencyBudget} annotations. The latencies of the API calls a
+ * test makes on its thread are collected while it runs; when it ends the
+ * declared percentiles are checked and a functionally passed test that missed a
+ * budget over at least minSamples calls is turned into a failure with
+ * {@link LatencyBudgetExceededException}; with fewer calls the miss is printed.
+ * At the end of the suite every declared budget is also checked against all
+ * calls of the run and printed.
+ */
+public class LatencyBudgetListener implements IInvokedMethodListener, ISuiteListener {
+
+	private static final ThreadLocal<Map<String, Stats>> testLatencies = new ThreadLocal<Map<String, Stats>>();
+	private static final Map<String, Stats> suiteLatencies = new ConcurrentHashMap<String, Stats>();
+	private static final Map<String, LatencyBudget> declaredBudgets = new ConcurrentHashMap<String, LatencyBudget>();
+
+	static {
+		ApiCallFilter.addListener(new ApiCallListener() {
+			@Override
+			public void onApiCall(String method, String endpoint, int statusCode, long bytes, long latencyNanos) {
+				long millis = latencyNanos / 1_000_000;
+				suiteLatencies.computeIfAbsent(endpoint, key -> new Stats()).add(millis);
+				Map<String, Stats> test = testLatencies.get();
+				if (test != null) {
+					test.computeIfAbsent(endpoint, key -> new Stats()).add(millis);
+				}
+			}
+		});
+	}
+
+	@Override
+	public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+		if (method.isTestMethod()) {
+			testLatencies.set(new HashMap<String, Stats>());
+		}
+	}
+
+	@Override
+	public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+		if (!method.isTestMethod()) {
+			return;
+		}
+		Map<String, Stats> latencies = testLatencies.get();
+		testLatencies.remove();
+		List<LatencyBudget> budgets = budgets(method.getTestMethod().getConstructorOrMethod().getMethod());
+		if (latencies == null || budgets.isEmpty()) {
+			return;
+		}
+		List<String> violations = new ArrayList<String>();
+		for (LatencyBudget budget : budgets) {
+			declaredBudgets.put(describe(budget), budget);
+			Stats stats = select(latencies, budget.endpoint());
+			if (stats.count() == 0 || stats.percentile(budget.percentile()) <= budget.maxMillis()) {
+				continue;
+			}
+			String violation = describe(budget) + " but was " + stats.percentile(budget.percentile()) + " ms over "
+					+ stats.count() + " calls";
+			if (stats.count() < budget.minSamples()) {
+				System.out.println(testResult.getName() + ": " + violation + ", not failed below "
+						+ budget.minSamples() + " calls");
+			} else {
+				violations.add(violation);
+			}
+		}
+		if (!violations.isEmpty() && testResult.getStatus() == ITestResult.SUCCESS) {
+			testResult.setStatus(ITestResult.FAILURE);
+			testResult.setThrowable(new LatencyBudgetExceededException(
+					"Latency budget exceeded: " + String.join("; ", violations)));
+		}
+	}
+
+	@Override
+	public void onStart(ISuite suite) {
+	}
+
+	@Override
+	public void onFinish(ISuite suite) {
+		if (declaredBudgets.isEmpty()) {
+			return;
+		}
+		System.out.println(String.format("%-60s %8s %8s %8s  %s", "LATENCY BUDGET (whole run)", "CALLS", "ACTUAL",
+				"BUDGET", "RESULT"));
+		for (Map.Entry<String, LatencyBudget> entry : declaredBudgets.entrySet()) {
+			LatencyBudget budget = entry.getValue();
+			Stats stats = select(suiteLatencies, budget.endpoint());
+			long actual = stats.percentile(budget.percentile());
+			System.out.println(String.format("%-60s %8d %8d %8d  %s", entry.getKey(), stats.count(), actual,
+					budget.maxMillis(), result(budget, stats.count(), actual)));
+		}
+	}
+
+	private static String result(LatencyBudget budget, int count, long actual) {
+		if (count == 0) {
+			return "no calls";
+		}
+		if (actual <= budget.maxMillis()) {
+			return "ok";
+		}
+		return count < budget.minSamples() ? "exceeded, too few calls" : "EXCEEDED";
+	}
+
+	// Method level budgets override class level budgets for the same endpoint
+	private static List<LatencyBudget> budgets(Method method) {
+		Map<String, LatencyBudget> budgets = new LinkedHashMap<String, LatencyBudget>();
+		for (LatencyBudget budget : method.getDeclaringClass().getAnnotationsByType(LatencyBudget.class)) {
+			budgets.put(budget.endpoint() + "@" + budget.percentile(), budget);
+		}
+		for (LatencyBudget budget : method.getAnnotationsByType(LatencyBudget.class)) {
+			budgets.put(budget.endpoint() + "@" + budget.percentile(), budget);
+		}
+		return new ArrayList<LatencyBudget>(budgets.values());
+	}
+
+	private static Stats select(Map<String, Stats> latencies, String endpoint) {
+		if (!endpoint.isEmpty()) {
+			Stats stats = latencies.get(endpoint);
+			return stats == null ? new Stats() : stats;
+		}
+		Stats all = new Stats();
+		for (Stats stats : latencies.values()) {
+			for (long sample : stats.samples()) {
+				all.add(sample);
+			}
+		}
+		return all;
+	}
+
+	private static String describe(LatencyBudget budget) {
+		return (budget.endpoint().isEmpty() ? "all calls" : budget.endpoint()) + " p" + budget.percentile() + " < "
+				+ budget.maxMillis() + " ms";
+	}
+
+}
@@ -0,0 +1,192 @@
+package coreUtilities.testlisteners;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.testng.IExecutionListener;
+
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+
+import coreUtilities.testutils.LatencyComparison;
+import coreUtilities.testutils.ResultsJournal;
+import rest.ApiCallFilter;
+import rest.ApiCallListener;
+import restConfig.ConfigManager;
+
+/**
+ * Fails the run when API latencies regressed against a stored baseline. Calls
+ * made by tests are collected per endpoint; after the run each endpoint is
+ * compared with the baseline samples by {@link LatencyComparison}. An endpoint
+ * regressed when the current run is slower with p below perf.gate.alpha and an
+ * A12 effect size of at least perf.gate.minEffect. The comparison table is
+ * printed and added to the run report. Each endpoint needs perf.gate.minSamples
+ * calls in both the baseline and the run, which a suite calling each endpoint
+ * once never reaches, so the gate is off by default (perf.gate.enabled) and
+ * meant for load or repeated runs. With perf.baseline.update=true
+ * a run without regressions merges its samples into the baseline, keeping the
+ * newest perf.baseline.maxSamples per endpoint.
+ */
+public class PerformanceGate implements IExecutionListener {
+
+	private static final Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<String, ConcurrentLinkedQueue<Long>>();
+
+	static {
+		ApiCallFilter.addListener(new ApiCallListener() {
+			@Override
+			public void onApiCall(String method, String endpoint, int statusCode, long bytes, long latencyNanos) {
+				// Warm-up and other calls made outside a test are left out
+				if (ResultsJournal.getCurrentTest() != null) {
+					latencies.computeIfAbsent(method + " " + endpoint, key -> new ConcurrentLinkedQueue<Long>())
+							.add(latencyNanos / 1000);
+				}
+			}
+		});
+	}
+
+	private final File baselineFile = new File(ConfigManager.getProperty("perf.baseline.file",
+			"src/test/java/testdata/baselines/latency-baseline.json"));
+	private final double alpha = Double.parseDouble(ConfigManager.getProperty("perf.gate.alpha", "0.01"));
+	private final double minEffect = Double.parseDouble(ConfigManager.getProperty("perf.gate.minEffect", "0.64"));
+	private final int minSamples = ConfigManager.getIntProperty("perf.gate.minSamples", 5);
+
+	@Override
+	public void onExecutionStart() {
+	}
+
+	@Override
+	public void onExecutionFinish() {
+		if (!ConfigManager.getBooleanProperty("perf.gate.enabled", false) || latencies.isEmpty()) {
+			return;
+		}
+		Map<String, long[]> baseline = readBaseline();
+		List<String[]> rows = new ArrayList<String[]>();
+		rows.add(new String[] { "Endpoint", "Baseline n", "Current n", "Baseline p50", "Current p50", "Baseline p95",
+				"Current p95", "A12", "p-value", "Result" });
+		List<String> regressions = new ArrayList<String>();
+		for (Map.Entry<String, long[]> entry : current().entrySet()) {
+			long[] before = baseline.get(entry.getKey());
+			String verdict;
+			LatencyComparison comparison = LatencyComparison.compare(before == null ? new long[0] : before,
+					entry.getValue());
+			if (before == null || before.length < minSamples || entry.getValue().length < minSamples) {
+				verdict = "not enough samples";
+			} else if (comparison.getPValue() < alpha && comparison.getEffectSize() >= minEffect) {
+				verdict = "REGRESSED";
+				regressions.add(entry.getKey());
+			} else {
+				verdict = "ok";
+			}
+			rows.add(new String[] { entry.getKey(), String.valueOf(comparison.getBaselineCount()),
+					String.valueOf(comparison.getCurrentCount()), millis(comparison.getBaselineP50()),
+					millis(comparison.getCurrentP50()), millis(comparison.getBaselineP95()),
+					millis(comparison.getCurrentP95()), String.format("%.2f", comparison.getEffectSize()),
+					String.format("%.4f", comparison.getPValue()), verdict });
+		}
+		print(rows);
+		report(rows, regressions);
+		if (regressions.isEmpty() && ConfigManager.getBooleanProperty("perf.baseline.update", false)) {
+			writeBaseline(baseline);
+		}
+		if (!regressions.isEmpty() && ConfigManager.getBooleanProperty("perf.gate.failOnRegression", true)) {
+			throw new IllegalStateException("Performance regression against " + baselineFile + ": " + regressions);
+		}
+	}
+
+	private static Map<String, long[]> current() {
+		Map<String, long[]> current = new TreeMap<String, long[]>();
+		for (Map.Entry<String, ConcurrentLinkedQueue<Long>> entry : latencies.entrySet()) {
+			current.put(entry.getKey(), entry.getValue().stream().mapToLong(Long::longValue).toArray());
+		}
+		return current;
+	}
+
+	private static String millis(long micros) {
+		return String.format("%.1f", micros / 1000.0);
+	}
+
+	private static void print(List<String[]> rows) {
+		for (String[] row : rows) {
+			System.out.println(String.format("%-60s %10s %10s %12s %12s %12s %12s %6s %8s  %s", (Object[]) row));
+		}
+	}
+
+	private static void report(final List<String[]> rows, final List<String> regressions) {
+		TestListener.report("Latency against baseline", "Mann-Whitney U per endpoint", test -> {
+			test.info(MarkupHelper.createTable(rows.toArray(new String[0][])));
+			if (regressions.isEmpty()) {
+				test.pass("No latency regression");
+			} else {
+				test.fail("Regressed endpoints: " + regressions);
+			}
+		});
+	}
+
+	// Baseline format: {"METHOD endpoint": [latency in microseconds, ...]}
+	private Map<String, long[]> readBaseline() {
+		Map<String, long[]> baseline = new TreeMap<String, long[]>();
+		if (!baselineFile.isFile()) {
+			System.out.println("No latency baseline at " + baselineFile);
+			return baseline;
+		}
+		try (Reader reader = new FileReader(baselineFile)) {
+			JSONObject json = (JSONObject) new JSONParser().parse(reader);
+			for (Object key : json.keySet()) {
+				JSONArray samples = (JSONArray) json.get(key);
+				long[] values = new long[samples.size()];
+				for (int i = 0; i < values.length; i++) {
+					values[i] = ((Number) samples.get(i)).longValue();
+				}
+				baseline.put((String) key, values);
+			}
+		} catch (IOException | ParseException e) {
+			System.out.println("Unable to read latency baseline " + baselineFile + ": " + e);
+		}
+		return baseline;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void writeBaseline(Map<String, long[]> baseline) {
+		int maxSamples = ConfigManager.getIntProperty("perf.baseline.maxSamples", 500);
+		JSONObject json = new JSONObject();
+		Map<String, long[]> merged = new TreeMap<String, long[]>(baseline);
+		merged.putAll(current());
+		for (Map.Entry<String, long[]> entry : merged.entrySet()) {
+			List<Long> samples = new ArrayList<Long>();
+			long[] before = baseline.get(entry.getKey());
+			if (before != null && entry.getValue() != before) {
+				for (long value : before) {
+					samples.add(value);
+				}
+			}
+			for (long value : entry.getValue()) {
+				samples.add(value);
+			}
+			JSONArray array = new JSONArray();
+			array.addAll(samples.subList(Math.max(0, samples.size() - maxSamples), samples.size()));
+			json.put(entry.getKey(), array);
+		}
+		baselineFile.getAbsoluteFile().getParentFile().mkdirs();
+		try (Writer writer = Files.newBufferedWriter(baselineFile.toPath(), StandardCharsets.UTF_8)) {
+			json.writeJSONString(writer);
+			System.out.println("Latency baseline updated: " + baselineFile);
+		} catch (IOException e) {
+			System.out.println("Unable to write latency baseline " + baselineFile + ": " + e);
+		}
+	}
+
+}
@@ -0,0 +1,144 @@
+package coreUtilities.testlisteners;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+
+import coreUtilities.testutils.ResultsJournalReader;
+import restConfig.ConfigManager;
+
+/**
+ * Keeps only the test methods that belong to this JVM's shard when the suite
+ * is split with -Dshard.index=i -Dshard.count=n. Methods linked through
+ * dependsOnMethods always land in the same shard. Assignment is
+ * deterministic: by default each group goes to the shard given by a stable hash
+ * of its name, and with shard.balance=true groups are dealt out longest first
+ * to the least loaded shard using the durations recorded by earlier unsharded
+ * runs, which every shard reads identically.
+ */
+public class ShardInterceptor implements IMethodInterceptor {
+
+	@Override
+	public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+		int shardCount = ConfigManager.getIntProperty("shard.count", 1);
+		if (shardCount <= 1) {
+			return methods;
+		}
+		int shardIndex = ConfigManager.getIntProperty("shard.index", 0);
+		Map<String, List<IMethodInstance>> groups = groupByDependencies(methods);
+		Map<String, Integer> assignment = ConfigManager.getBooleanProperty("shard.balance", false)
+				? balance(groups, shardCount)
+				: hash(groups, shardCount);
+
+		Set<IMethodInstance> mine = new HashSet<IMethodInstance>();
+		for (Map.Entry<String, List<IMethodInstance>> group : groups.entrySet()) {
+			if (assignment.get(group.getKey()) == shardIndex) {
+				mine.addAll(group.getValue());
+			}
+		}
+		// Keep TestNG's order within the shard
+		List<IMethodInstance> selected = new ArrayList<IMethodInstance>();
+		for (IMethodInstance method : methods) {
+			if (mine.contains(method)) {
+				selected.add(method);
+			}
+		}
+		System.out.println("Shard " + shardIndex + " of " + shardCount + ": running " + selected.size() + " of "
+				+ methods.size() + " test methods");
+		return selected;
+	}
+
+	// Groups are keyed by their alphabetically first method so the key is the same in every JVM
+	private static Map<String, List<IMethodInstance>> groupByDependencies(List<IMethodInstance> methods) {
+		Map<String, String> parent = new HashMap<String, String>();
+		for (IMethodInstance method : methods) {
+			parent.put(method.getMethod().getQualifiedName(), method.getMethod().getQualifiedName());
+		}
+		for (IMethodInstance method : methods) {
+			for (String upstream : method.getMethod().getMethodsDependedUpon()) {
+				if (parent.containsKey(upstream)) {
+					union(parent, method.getMethod().getQualifiedName(), upstream);
+				}
+			}
+		}
+		Map<String, List<IMethodInstance>> groups = new TreeMap<String, List<IMethodInstance>>();
+		for (IMethodInstance method : methods) {
+			String root = find(parent, method.getMethod().getQualifiedName());
+			if (!groups.containsKey(root)) {
+				groups.put(root, new ArrayList<IMethodInstance>());
+			}
+			groups.get(root).add(method);
+		}
+		return groups;
+	}
+
+	private static String find(Map<String, String> parent, String name) {
+		String root = name;
+		while (!parent.get(root).equals(root)) {
+			root = parent.get(root);
+		}
+		parent.put(name, root);
+		return root;
+	}
+
+	private static void union(Map<String, String> parent, String first, String second) {
+		String firstRoot = find(parent, first);
+		String secondRoot = find(parent, second);
+		if (firstRoot.compareTo(secondRoot) < 0) {
+			parent.put(secondRoot, firstRoot);
+		} else {
+			parent.put(firstRoot, secondRoot);
+		}
+	}
+
+	private static Map<String, Integer> hash(Map<String, List<IMethodInstance>> groups, int shardCount) {
+		Map<String, Integer> assignment = new HashMap<String, Integer>();
+		for (String group : groups.keySet()) {
+			assignment.put(group, Math.floorMod(group.hashCode(), shardCount));
+		}
+		return assignment;
+	}
+
+	private static Map<String, Integer> balance(Map<String, List<IMethodInstance>> groups, int shardCount) {
+		Map<String, Long> history = ResultsJournalReader
+				.aggregate(new File(ConfigManager.getProperty("journal.dir", "TestReport/journal")), "run-")
+				.getMeanTestDurations();
+		final Map<String, Long> groupDurations = new HashMap<String, Long>();
+		for (Map.Entry<String, List<IMethodInstance>> group : groups.entrySet()) {
+			long total = 0;
+			for (IMethodInstance method : group.getValue()) {
+				Long duration = history.get(method.getMethod().getQualifiedName());
+				total += duration == null ? 1 : duration;
+			}
+			groupDurations.put(group.getKey(), total);
+		}
+		List<String> ordered = new ArrayList<String>(groups.keySet());
+		ordered.sort((first, second) -> {
+			int byDuration = Long.compare(groupDurations.get(second), groupDurations.get(first));
+			return byDuration != 0 ? byDuration : first.compareTo(second);
+		});
+		long[] load = new long[shardCount];
+		Map<String, Integer> assignment = new HashMap<String, Integer>();
+		for (String group : ordered) {
+			int shard = 0;
+			for (int i = 1; i < shardCount; i++) {
+				if (load[i] < load[shard]) {
+					shard = i;
+				}
+			}
+			load[shard] += groupDurations.get(group);
+			assignment.put(group, shard);
+		}
+		return assignment;
+	}
+
+}
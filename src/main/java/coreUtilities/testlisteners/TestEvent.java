@@ -0,0 +1,68 @@
+package coreUtilities.testlisteners;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.testng.ITestResult;
+
+/**
+ * Immutable test lifecycle event handed from a test thread to the
+ * {@link TestEventPipeline} consumer.
+ */
+public class TestEvent {
+
+	public enum Type {
+		STARTED, PASSED, FAILED, SKIPPED, BARRIER
+	}
+
+	private final Type type;
+	private final ITestResult result;
+	private final String threadName;
+	private final long timestampMillis;
+	private final CountDownLatch barrier;
+	private final Runnable task;
+
+	public TestEvent(Type type, ITestResult result) {
+		this(type, result, null, null);
+	}
+
+	private TestEvent(Type type, ITestResult result, CountDownLatch barrier, Runnable task) {
+		this.type = type;
+		this.result = result;
+		this.threadName = Thread.currentThread().getName();
+		this.timestampMillis = System.currentTimeMillis();
+		this.barrier = barrier;
+		this.task = task;
+	}
+
+	// Barrier events run their task, if any, and release the latch once every
+	// earlier event has been handled
+	static TestEvent barrier(CountDownLatch latch, Runnable task) {
+		return new TestEvent(Type.BARRIER, null, latch, task);
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public ITestResult getResult() {
+		return result;
+	}
+
+	// Name of the test thread that raised the event
+	public String getThreadName() {
+		return threadName;
+	}
+
+	public long getTimestampMillis() {
+		return timestampMillis;
+	}
+
+	CountDownLatch getBarrier() {
+		return barrier;
+	}
+
+	Runnable getTask() {
+		return task;
+	}
+
+}
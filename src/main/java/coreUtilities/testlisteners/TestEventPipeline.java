@@ -0,0 +1,148 @@
+package coreUtilities.testlisteners;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Multi-producer, single-consumer ring buffer for {@link TestEvent}s. Test
+ * threads claim a slot with one atomic increment and publish into it without
+ * taking a lock; a single consumer thread hands the events, in order, to every
+ * subscribed {@link Handler}. Handlers therefore run on one thread and need no
+ * synchronization of their own. A producer only waits (spinning) when the
+ * consumer is a full ring behind. An idle consumer parks until a producer
+ * unparks it, so the thread costs nothing between tests.
+ */
+public class TestEventPipeline {
+
+	public interface Handler {
+		void onEvent(TestEvent event) throws Exception;
+	}
+
+	private final AtomicReferenceArray<TestEvent> slots;
+	private final int mask;
+	private final AtomicLong claimed = new AtomicLong();
+	private volatile long consumed;
+	private volatile boolean parked;
+	private final Thread consumer;
+	private final List<Handler> handlers = new CopyOnWriteArrayList<Handler>();
+
+	public TestEventPipeline(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		slots = new AtomicReferenceArray<TestEvent>(size);
+		mask = size - 1;
+		consumer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				consume();
+			}
+		}, "test-event-consumer");
+		consumer.setDaemon(true);
+		consumer.start();
+	}
+
+	// Method to register a handler, called on the consumer thread for every event
+	public void subscribe(Handler handler) {
+		handlers.add(handler);
+	}
+
+	/**
+	 * This method publishes an event from any thread without locking.
+	 * 
+	 * @param event - {@link TestEvent} to hand to the consumer
+	 */
+	public void publish(TestEvent event) {
+		long sequence = claimed.getAndIncrement();
+		while (sequence - consumed >= slots.length()) {
+			Thread.yield();
+		}
+		// A volatile store, so it cannot pass the read of parked below
+		slots.set((int) (sequence & mask), event);
+		if (parked) {
+			LockSupport.unpark(consumer);
+		}
+	}
+
+	/**
+	 * This method blocks until every event published before the call has been
+	 * handled.
+	 * 
+	 * @param timeoutMillis - {@link Long} maximum time to wait
+	 * @return {@link Boolean} false when the consumer did not catch up in time
+	 */
+	public boolean drain(long timeoutMillis) {
+		return drain(timeoutMillis, null);
+	}
+
+	/**
+	 * This method runs a task on the consumer thread after every event published
+	 * before the call has been handled, so it never races a handler, and waits
+	 * for it. The task still runs if the wait times out.
+	 * 
+	 * @param timeoutMillis - {@link Long} maximum time to wait
+	 * @param task          - {@link Runnable} to run on the consumer thread
+	 * @return {@link Boolean} false when the task did not finish in time
+	 */
+	public boolean drain(long timeoutMillis, Runnable task) {
+		CountDownLatch latch = new CountDownLatch(1);
+		publish(TestEvent.barrier(latch, task));
+		try {
+			return latch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private void consume() {
+		long next = 0;
+		int idleSpins = 0;
+		while (true) {
+			int index = (int) (next & mask);
+			TestEvent event = slots.get(index);
+			if (event == null) {
+				// Spin briefly for back-to-back events, then sleep until a publish;
+				// the slot is read again after parked is set so no wake-up is missed
+				if (++idleSpins > 100) {
+					parked = true;
+					if (slots.get(index) == null) {
+						LockSupport.park(this);
+					}
+					parked = false;
+				}
+				continue;
+			}
+			idleSpins = 0;
+			slots.lazySet(index, null);
+			consumed = ++next;
+			dispatch(event);
+		}
+	}
+
+	private void dispatch(TestEvent event) {
+		if (event.getType() == TestEvent.Type.BARRIER) {
+			try {
+				if (event.getTask() != null) {
+					event.getTask().run();
+				}
+			} catch (Throwable t) {
+				t.printStackTrace();
+			} finally {
+				event.getBarrier().countDown();
+			}
+			return;
+		}
+		for (Handler handler : handlers) {
+			try {
+				handler.onEvent(event);
+			} catch (Throwable t) {
+				t.printStackTrace();
+			}
+		}
+	}
+
+}
@@ -4,74 +4,285 @@ import static coreUtilities.testutils.TestUtils.businessTestFile;
 import static coreUtilities.testutils.TestUtils.yakshaAssert;
 
 import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
+import org.testng.IExecutionListener;
 import org.testng.ITestContext;
 import org.testng.ITestListener;
 import org.testng.ITestResult;
 
-import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
 
-import coreUtilities.utils.ExtentReportManager;
+import coreUtilities.profiling.TestExecutionEvent;
+import coreUtilities.testutils.FailureClassifier;
+import coreUtilities.testutils.LatencyBudgetExceededException;
+import coreUtilities.testutils.ResultPublisher;
+import coreUtilities.testutils.ResultsJournal;
+import coreUtilities.testutils.ResultsWorkbook;
+import coreUtilities.testutils.RetryAnalyzer;
+import coreUtilities.utils.FileOperations;
+import coreUtilities.utils.Log;
+import coreUtilities.utils.ShardedExtentReport;
+import rest.ApiCallFilter;
+import rest.AuthUtil;
+import rest.FlightRecorder;
+import rest.WarmUp;
 
-public class TestListener implements ITestListener {
+public class TestListener implements ITestListener, IExecutionListener {
 
-	// Extent Report Declarations
-	private static ExtentReports extent = ExtentReportManager.createInstance();
-	private static ThreadLocal<ExtentTest> test = new ThreadLocal<ExtentTest>();
+	// Extent Report Declarations, flushed incrementally and sharded for large runs
+	private static ShardedExtentReport extent = new ShardedExtentReport();
 
-	public synchronized void onStart(ITestContext context) {
-		System.out.println("Extent Reports Version 3 Test Suite started!");
+	// Test threads only publish events; reporting runs on the pipeline's consumer
+	// thread, which owns the map below
+	private static final TestEventPipeline pipeline = new TestEventPipeline(1024);
+	private static final Map<ITestResult, ExtentTest> tests = new IdentityHashMap<ITestResult, ExtentTest>();
+	private static final AtomicLong callbackNanos = new AtomicLong();
+	private static final AtomicLong callbacks = new AtomicLong();
+
+	private static final String API_EXCHANGES = "apiExchanges";
+	private static final String JFR_EVENT = "jfrEvent";
+
+	private static ResultsJournal journal;
+	private static ResultsWorkbook resultsWorkbook;
+
+	static {
+		ApiCallFilter.addListener(FailureClassifier.getInstance());
+		pipeline.subscribe(new TestEventPipeline.Handler() {
+			@Override
+			public void onEvent(TestEvent event) throws Exception {
+				handle(event);
+			}
+		});
+		try {
+			journal = new ResultsJournal();
+			ApiCallFilter.addListener(journal);
+			pipeline.subscribe(new TestEventPipeline.Handler() {
+				@Override
+				public void onEvent(TestEvent event) {
+					if (event.getType() == TestEvent.Type.STARTED) {
+						journal.testStarted(event.getResult(), event.getThreadName());
+					} else {
+						journal.testFinished(event.getResult(), event.getThreadName());
+					}
+				}
+			});
+		} catch (IOException e) {
+			System.out.println("Results journal disabled: " + e.getMessage());
+		}
+		resultsWorkbook = ResultsWorkbook.open();
+		if (resultsWorkbook != null) {
+			ApiCallFilter.addListener(resultsWorkbook);
+			pipeline.subscribe(new TestEventPipeline.Handler() {
+				@Override
+				public void onEvent(TestEvent event) {
+					if (event.getType() != TestEvent.Type.STARTED) {
+						String status = event.getResult().wasRetried() ? "RETRIED" : event.getType().name();
+						resultsWorkbook.testFinished(event.getResult(), status, event.getThreadName());
+					}
+				}
+			});
+		}
 	}
 
-	public synchronized void onFinish(ITestContext context) {
-		System.out.println(("Extent Reports Version 3  Test Suite is ending!"));
-		extent.flush();
+	// Once per run; onStart(ITestContext) is called again for every <test>
+	@Override
+	public void onExecutionStart() {
+		WarmUp.run();
 	}
 
-	public synchronized void onTestStart(ITestResult result) {
-		System.out.println((result.getMethod().getMethodName() + " started!"));
-		ExtentTest extentTest = extent.createTest(result.getMethod().getMethodName(),
-				result.getMethod().getDescription());
-		test.set(extentTest);
+	// The workbook is process wide, so it is closed once, on the consumer thread
+	// after the last event, never per <test>
+	@Override
+	public void onExecutionFinish() {
+		if (!pipeline.drain(60000, new Runnable() {
+			@Override
+			public void run() {
+				if (resultsWorkbook != null) {
+					resultsWorkbook.close();
+				}
+			}
+		})) {
+			System.out.println("Test events still pending after 60 s, the results workbook may be incomplete");
+		}
+		if (journal != null) {
+			journal.close();
+		}
 	}
 
-	public synchronized void onTestSuccess(ITestResult result) {
-		System.out.println((result.getMethod().getMethodName() + " passed!"));
-		test.get().pass("Test passed");
-		try {
-			yakshaAssert(result.getMethod().getMethodName(), true, businessTestFile);
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+	/**
+	 * This method adds a node for a run level check, e.g. the performance gate,
+	 * to the run report and flushes it. The node is built on the consumer thread
+	 * after every pending test event.
+	 * 
+	 * @param name        - {@link String} node name
+	 * @param description - {@link String} node description
+	 * @param content     - {@link Consumer} that logs the node's entries and status
+	 */
+	public static void report(final String name, final String description, final Consumer<ExtentTest> content) {
+		if (!pipeline.drain(60000, new Runnable() {
+			@Override
+			public void run() {
+				ExtentTest test = extent.createTest(name, description);
+				content.accept(test);
+				extent.finished(test);
+				extent.flush();
+			}
+		})) {
+			System.out.println("Test events still pending after 60 s, " + name + " may be missing from the report");
 		}
 	}
 
-	public synchronized void onTestFailure(ITestResult result) {
-		System.out.println((result.getMethod().getMethodName() + " failed!"));
-		System.out.println(result.getThrowable().toString());
-		try {
-			yakshaAssert(result.getMethod().getMethodName(), false, businessTestFile);
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+	public void onStart(ITestContext context) {
+		System.out.println("Extent Reports Version 3 Test Suite started!");
+		FileOperations.prefetch();
+	}
+
+	public void onFinish(ITestContext context) {
+		System.out.println(("Extent Reports Version 3  Test Suite is ending!"));
+		// The report belongs to the consumer thread, so it is flushed there
+		if (!pipeline.drain(60000, new Runnable() {
+			@Override
+			public void run() {
+				extent.flush();
+			}
+		})) {
+			System.out.println("Test events still pending after 60 s, the report may be incomplete");
+		}
+		if (journal != null) {
+			journal.force();
 		}
-		test.get().fail(result.getThrowable());
+		AuthUtil.printIdentityReport();
+		RetryAnalyzer.printFlakinessReport();
+		if (!ResultPublisher.flush(30000)) {
+			ResultPublisher.spillQueued();
+		}
+		ResultPublisher.printMetrics();
+		long count = callbacks.get();
+		System.out.println("Listener overhead: " + (count == 0 ? 0 : callbackNanos.get() / count)
+				+ " ns per callback over " + count + " callbacks");
 	}
 
-	public synchronized void onTestSkipped(ITestResult result) {
-		System.out.println((result.getMethod().getMethodName() + " skipped!"));
-		try {
-			yakshaAssert(result.getMethod().getMethodName(), false, businessTestFile);
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+	public void onTestStart(ITestResult result) {
+		ResultsJournal.setCurrentTest(ResultsJournal.testName(result));
+		Log.setTestId(ResultsJournal.scenarioName(result));
+		FailureClassifier.reset();
+		FlightRecorder.clear();
+		TestExecutionEvent event = new TestExecutionEvent();
+		event.testName = ResultsJournal.scenarioName(result);
+		event.begin();
+		result.setAttribute(JFR_EVENT, event);
+		publish(TestEvent.Type.STARTED, result);
+	}
+
+	public void onTestSuccess(ITestResult result) {
+		RetryAnalyzer.testPassed(result);
+		finishJfrEvent(result, "PASSED");
+		ResultsWorkbook.attachCalls(result);
+		publish(TestEvent.Type.PASSED, result);
+		ResultsJournal.setCurrentTest(null);
+		Log.clearTestId();
+	}
+
+	public void onTestFailure(ITestResult result) {
+		finishJfrEvent(result, "FAILED");
+		// The recorder is per thread, so its exchanges are captured here on the test thread
+		String exchanges = FlightRecorder.dump();
+		if (!exchanges.isEmpty()) {
+			result.setAttribute(API_EXCHANGES, exchanges);
+			Log.error(() -> "Last API exchanges of " + result.getMethod().getMethodName() + ":\n" + exchanges);
 		}
-		test.get().skip(result.getThrowable());
+		ResultsWorkbook.attachCalls(result);
+		publish(TestEvent.Type.FAILED, result);
+		ResultsJournal.setCurrentTest(null);
+		Log.clearTestId();
+	}
+
+	public void onTestSkipped(ITestResult result) {
+		finishJfrEvent(result, "SKIPPED");
+		ResultsWorkbook.attachCalls(result);
+		publish(TestEvent.Type.SKIPPED, result);
+		ResultsJournal.setCurrentTest(null);
+		Log.clearTestId();
 	}
 
 	public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
 		System.out.println(("onTestFailedButWithinSuccessPercentage for " + result.getMethod().getMethodName()));
 	}
 
-}
\ No newline at end of file
+	private static void finishJfrEvent(ITestResult result, String status) {
+		Object event = result.removeAttribute(JFR_EVENT);
+		if (event != null) {
+			((TestExecutionEvent) event).finish(status);
+		}
+	}
+
+	private static void publish(TestEvent.Type type, ITestResult result) {
+		long start = System.nanoTime();
+		pipeline.publish(new TestEvent(type, result));
+		callbackNanos.addAndGet(System.nanoTime() - start);
+		callbacks.incrementAndGet();
+	}
+
+	// Runs on the consumer thread only
+	private static void handle(TestEvent event) throws Exception {
+		ITestResult result = event.getResult();
+		String methodName = result.getMethod().getMethodName() + ResultsJournal.rowSuffix(result);
+		switch (event.getType()) {
+		case STARTED:
+			System.out.println((methodName + " started!"));
+			tests.put(result, extent.createTest(methodName, result.getMethod().getDescription()));
+			break;
+		case PASSED:
+			System.out.println((methodName + " passed!"));
+			extent.finished(extentTest(result).pass("Test passed"));
+			yakshaAssert(methodName, true, businessTestFile);
+			break;
+		case FAILED:
+			System.out.println((methodName + " failed!"));
+			System.out.println(result.getThrowable().toString());
+			yakshaAssert(methodName, false, businessTestFile);
+			ExtentTest failed = extentTest(result).fail(result.getThrowable());
+			if (result.getThrowable() instanceof LatencyBudgetExceededException) {
+				failed.assignCategory("Latency budget");
+			}
+			if (result.getAttribute(API_EXCHANGES) != null) {
+				failed.info(MarkupHelper.createCodeBlock((String) result.getAttribute(API_EXCHANGES)));
+			}
+			extent.finished(failed);
+			break;
+		case SKIPPED:
+			if (result.wasRetried()) {
+				// An attempt TestNG runs again; only the last attempt is graded and
+				// reported, the retry is counted by RetryAnalyzer
+				System.out.println((methodName + " failed, retrying"));
+				ExtentTest attempt = tests.remove(result);
+				if (attempt != null) {
+					extent.removed(attempt);
+				}
+				break;
+			}
+			System.out.println((methodName + " skipped!"));
+			yakshaAssert(methodName, false, businessTestFile);
+			extent.finished(extentTest(result).skip(result.getThrowable()));
+			break;
+		default:
+			break;
+		}
+	}
+
+	// Tests skipped on a failed dependency are reported without a start event
+	private static ExtentTest extentTest(ITestResult result) {
+		ExtentTest extentTest = tests.remove(result);
+		if (extentTest == null) {
+			extentTest = extent.createTest(result.getMethod().getMethodName() + ResultsJournal.rowSuffix(result),
+					result.getMethod().getDescription());
+		}
+		return extentTest;
+	}
+
+}
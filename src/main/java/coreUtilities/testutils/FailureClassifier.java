@@ -0,0 +1,86 @@
+package coreUtilities.testutils;
+
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.http.NoHttpResponseException;
+
+import rest.ApiCallListener;
+
+/**
+ * Sorts test failures into causes so that only transient ones are retried. The
+ * HTTP status of the last API call made on the test thread tells a 5xx from a
+ * genuine assertion mismatch, because tests fail on a status assertion rather
+ * than an exception when the server errors. Only connection level I/O errors
+ * count as transient; other IOExceptions, such as a missing test data file or
+ * malformed JSON, fail the same way every time and are not retried.
+ */
+public class FailureClassifier implements ApiCallListener {
+
+	public enum Cause {
+		TIMEOUT(true), TRANSIENT_IO(true), SERVER_ERROR(true), LATENCY_BUDGET(false), ASSERTION(false), OTHER(false);
+
+		private final boolean retryable;
+
+		Cause(boolean retryable) {
+			this.retryable = retryable;
+		}
+
+		public boolean isRetryable() {
+			return retryable;
+		}
+	}
+
+	private static final FailureClassifier instance = new FailureClassifier();
+	private static final ThreadLocal<Integer> lastStatus = new ThreadLocal<Integer>();
+
+	private FailureClassifier() {
+	}
+
+	public static FailureClassifier getInstance() {
+		return instance;
+	}
+
+	// Method to forget the previous test's last call, invoked when a test starts
+	public static void reset() {
+		lastStatus.remove();
+	}
+
+	@Override
+	public void onApiCall(String method, String endpoint, int statusCode, long bytes, long latencyNanos) {
+		lastStatus.set(statusCode);
+	}
+
+	/**
+	 * This method classifies the failure of a test that ran on the calling
+	 * thread.
+	 * 
+	 * @param throwable - {@link Throwable} the test failed with, may be null
+	 * @return {@link Cause}
+	 */
+	public static Cause classify(Throwable throwable) {
+		if (throwable instanceof LatencyBudgetExceededException) {
+			return Cause.LATENCY_BUDGET;
+		}
+		for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+			if (cause instanceof SocketTimeoutException || cause instanceof TimeoutException
+					|| cause.getClass().getSimpleName().contains("Timeout")) {
+				return Cause.TIMEOUT;
+			}
+			// SocketException covers ConnectException and connection resets
+			if (cause instanceof SocketException || cause instanceof NoHttpResponseException) {
+				return Cause.TRANSIENT_IO;
+			}
+		}
+		Integer status = lastStatus.get();
+		if (status != null && status == -1) {
+			return Cause.TRANSIENT_IO;
+		}
+		if (status != null && status >= 500) {
+			return Cause.SERVER_ERROR;
+		}
+		return throwable instanceof AssertionError ? Cause.ASSERTION : Cause.OTHER;
+	}
+
+}
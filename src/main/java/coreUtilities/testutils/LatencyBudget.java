@@ -0,0 +1,42 @@
+package coreUtilities.testutils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a latency budget for the API calls a test makes, e.g.
+ * {@code @LatencyBudget(endpoint = "/Patient/SearchRegisteredPatient", percentile = 95, maxMillis = 300)}.
+ * The budget is checked by
+ * {@link coreUtilities.testlisteners.LatencyBudgetListener} when the test
+ * ends; a test that passed functionally but missed its budget fails with
+ * {@link LatencyBudgetExceededException}. A percentile over fewer than
+ * minSamples calls says nothing about the tail, so such a budget is only
+ * reported, never failed. On a class the budget applies to every test method
+ * of the class.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.METHOD, ElementType.TYPE })
+@Repeatable(LatencyBudget.List.class)
+public @interface LatencyBudget {
+
+	// Endpoint path without base URL and query; empty means every call of the test
+	String endpoint() default "";
+
+	int percentile() default 95;
+
+	long maxMillis();
+
+	// Calls needed before the percentile can fail the test; percentile 100 with
+	// minSamples 1 is a per-call maximum that a test making one call can break
+	int minSamples() default 20;
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ ElementType.METHOD, ElementType.TYPE })
+	@interface List {
+		LatencyBudget[] value();
+	}
+
+}
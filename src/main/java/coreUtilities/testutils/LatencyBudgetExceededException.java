@@ -0,0 +1,14 @@
+package coreUtilities.testutils;
+
+/**
+ * Failure of a test whose API calls missed a {@link LatencyBudget}, kept apart
+ * from functional assertion failures.
+ */
+@SuppressWarnings("serial")
+public class LatencyBudgetExceededException extends AssertionError {
+
+	public LatencyBudgetExceededException(String message) {
+		super(message);
+	}
+
+}
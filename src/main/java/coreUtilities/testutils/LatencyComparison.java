@@ -0,0 +1,132 @@
+package coreUtilities.testutils;
+
+import java.util.Arrays;
+
+/**
+ * Compares two latency samples with a one-sided Mann-Whitney U test (is the
+ * current run slower than the baseline?) and reports the Vargha-Delaney A12
+ * effect size, the probability that a random current call is slower than a
+ * random baseline call (0.5 = no difference).
+ */
+public class LatencyComparison {
+
+	private final int baselineCount;
+	private final int currentCount;
+	private final long baselineP50;
+	private final long baselineP95;
+	private final long currentP50;
+	private final long currentP95;
+	private final double pValue;
+	private final double effectSize;
+
+	/**
+	 * This method compares a current latency sample with a baseline sample.
+	 * 
+	 * @param baseline - latencies of earlier runs
+	 * @param current  - latencies of this run
+	 * @return {@link LatencyComparison}
+	 */
+	public static LatencyComparison compare(long[] baseline, long[] current) {
+		return new LatencyComparison(baseline.clone(), current.clone());
+	}
+
+	private LatencyComparison(long[] baseline, long[] current) {
+		Arrays.sort(baseline);
+		Arrays.sort(current);
+		this.baselineCount = baseline.length;
+		this.currentCount = current.length;
+		this.baselineP50 = percentile(baseline, 50);
+		this.baselineP95 = percentile(baseline, 95);
+		this.currentP50 = percentile(current, 50);
+		this.currentP95 = percentile(current, 95);
+
+		if (baseline.length == 0 || current.length == 0) {
+			this.pValue = 1;
+			this.effectSize = 0.5;
+			return;
+		}
+		// Rank sum of the current sample over both sorted samples, ties get their average rank
+		double currentRankSum = 0;
+		double tieTerm = 0;
+		int b = 0;
+		int c = 0;
+		int rank = 1;
+		while (b < baseline.length || c < current.length) {
+			long value = c == current.length || (b < baseline.length && baseline[b] <= current[c]) ? baseline[b]
+					: current[c];
+			int tiedBaseline = 0;
+			int tiedCurrent = 0;
+			while (b < baseline.length && baseline[b] == value) {
+				b++;
+				tiedBaseline++;
+			}
+			while (c < current.length && current[c] == value) {
+				c++;
+				tiedCurrent++;
+			}
+			int tied = tiedBaseline + tiedCurrent;
+			currentRankSum += tiedCurrent * (rank + (tied - 1) / 2.0);
+			tieTerm += (double) tied * tied * tied - tied;
+			rank += tied;
+		}
+		double n1 = current.length;
+		double n2 = baseline.length;
+		double u = currentRankSum - n1 * (n1 + 1) / 2;
+		double n = n1 + n2;
+		double sigma = Math.sqrt(n1 * n2 / 12 * ((n + 1) - tieTerm / (n * (n - 1))));
+		this.effectSize = u / (n1 * n2);
+		this.pValue = sigma == 0 ? 1 : 1 - normalCdf((u - n1 * n2 / 2 - 0.5) / sigma);
+	}
+
+	private static long percentile(long[] sorted, int percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+
+	// Abramowitz and Stegun 7.1.26, accurate to about 1e-7
+	private static double normalCdf(double z) {
+		double x = Math.abs(z) / Math.sqrt(2);
+		double t = 1 / (1 + 0.3275911 * x);
+		double erf = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027
+				+ t * 1.061405429)))) * Math.exp(-x * x);
+		return z >= 0 ? (1 + erf) / 2 : (1 - erf) / 2;
+	}
+
+	public int getBaselineCount() {
+		return baselineCount;
+	}
+
+	public int getCurrentCount() {
+		return currentCount;
+	}
+
+	public long getBaselineP50() {
+		return baselineP50;
+	}
+
+	public long getBaselineP95() {
+		return baselineP95;
+	}
+
+	public long getCurrentP50() {
+		return currentP50;
+	}
+
+	public long getCurrentP95() {
+		return currentP95;
+	}
+
+	// One-sided p-value of "the current run is slower"
+	public double getPValue() {
+		return pValue;
+	}
+
+	// Vargha-Delaney A12, probability that a current call is slower than a baseline call
+	public double getEffectSize() {
+		return effectSize;
+	}
+
+}
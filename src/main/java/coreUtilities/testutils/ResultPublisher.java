@@ -0,0 +1,342 @@
+package coreUtilities.testutils;
+
+import static coreUtilities.testutils.TestUtils.RED_BOLD_BRIGHT;
+import static coreUtilities.testutils.TestUtils.TEXT_RESET;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import restConfig.ConfigManager;
+
+/**
+ * Publishes test results off the test threads. Payloads go to a bounded queue
+ * and a single daemon thread drains them in batches, POSTing each one over
+ * keep-alive connections. A POST is only retried, with exponential backoff,
+ * when the result cannot have been recorded: the connection failed or the
+ * receiver answered 503. Results are graded, so none is dropped: a caller
+ * waits up to results.queue.offerTimeoutMillis for room in the queue, and a
+ * result that is not published is appended to results.spill.file and reported
+ * when the suite finishes; {@link #replay(long)} pushes the file again. The
+ * queue is flushed when the suite finishes and again from a JVM shutdown hook.
+ */
+public class ResultPublisher {
+
+	private static final String RESULTS_URL = ConfigManager.getProperty("results.url", TestUtils.URL);
+	private static final int BATCH_SIZE = ConfigManager.getIntProperty("results.batch.size", 20);
+	private static final int MAX_ATTEMPTS = ConfigManager.getIntProperty("results.retry.attempts", 3);
+	private static final long BACKOFF_MILLIS = ConfigManager.getLongProperty("results.retry.backoffMillis", 200);
+	private static final long OFFER_TIMEOUT_MILLIS = ConfigManager.getLongProperty("results.queue.offerTimeoutMillis",
+			10000);
+	private static final File SPILL_FILE = new File(
+			ConfigManager.getProperty("results.spill.file", "TestReport/unpublished-results.jsonl"));
+
+	private static final BlockingQueue<Result> queue = new ArrayBlockingQueue<Result>(
+			ConfigManager.getIntProperty("results.queue.capacity", 1000));
+	private static final AtomicInteger pending = new AtomicInteger();
+	private static final AtomicInteger maxQueueDepth = new AtomicInteger();
+	private static final AtomicLong published = new AtomicLong();
+	private static final AtomicLong failed = new AtomicLong();
+	private static final AtomicLong spilled = new AtomicLong();
+	private static final AtomicLong publishNanos = new AtomicLong();
+	private static final AtomicLong maxPublishNanos = new AtomicLong();
+	private static final Object drained = new Object();
+
+	static {
+		Thread publisher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				drainLoop();
+			}
+		}, "result-publisher");
+		publisher.setDaemon(true);
+		publisher.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				if (!flush(5000)) {
+					spillQueued();
+				}
+			}
+		}));
+	}
+
+	/**
+	 * This method queues a result payload for publishing. It returns at once
+	 * unless the queue is full, then it waits up to
+	 * results.queue.offerTimeoutMillis and spills the payload to disk when there
+	 * is still no room.
+	 * 
+	 * @param payload          - {@link String} JSON serialized {@link TestResults}
+	 * @param customDataLength - {@link Integer} length of the custom data, for
+	 *                         diagnostics
+	 * @return {@link Boolean} false when the payload was spilled to disk
+	 */
+	public static boolean publish(String payload, int customDataLength) {
+		Result result = new Result(payload, customDataLength);
+		pending.incrementAndGet();
+		boolean queued;
+		try {
+			queued = queue.offer(result) || queue.offer(result, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			queued = false;
+		}
+		if (!queued) {
+			spill(result);
+			completed(1);
+			return false;
+		}
+		int depth = queue.size();
+		int max;
+		while (depth > (max = maxQueueDepth.get()) && !maxQueueDepth.compareAndSet(max, depth)) {
+		}
+		return true;
+	}
+
+	/**
+	 * This method waits until every queued result has been published or spilled.
+	 * 
+	 * @param timeoutMillis - {@link Long} maximum time to wait
+	 * @return {@link Boolean} true when nothing is left pending
+	 */
+	public static boolean flush(long timeoutMillis) {
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		synchronized (drained) {
+			while (pending.get() > 0) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return false;
+				}
+				try {
+					drained.wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	// Method to get the number of results waiting to be published
+	public static int getQueueDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * This method writes the results still waiting in the queue to the spill
+	 * file, for a flush that timed out at the end of the suite.
+	 */
+	public static void spillQueued() {
+		List<Result> left = new ArrayList<Result>();
+		queue.drainTo(left);
+		for (Result result : left) {
+			spill(result);
+		}
+		completed(left.size());
+	}
+
+	/**
+	 * This method publishes the results saved in results.spill.file again, e.g.
+	 * once the receiver is back. Results that fail again are spilled to a new
+	 * file; the replayed copy is deleted once every result was handled.
+	 * 
+	 * @param timeoutMillis - {@link Long} maximum time to wait for publishing
+	 * @return {@link Integer} number of results replayed
+	 * @throws IOException when the spill file cannot be read
+	 */
+	public static int replay(long timeoutMillis) throws IOException {
+		File replaying = new File(SPILL_FILE.getPath() + ".replaying");
+		// Same lock as spill, so no result is appended while the file moves
+		synchronized (ResultPublisher.class) {
+			if (!SPILL_FILE.isFile()) {
+				return 0;
+			}
+			Files.move(SPILL_FILE.toPath(), replaying.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		int count = 0;
+		for (String payload : Files.readAllLines(replaying.toPath(), StandardCharsets.UTF_8)) {
+			if (!payload.isEmpty()) {
+				// The custom data length is not saved, -1 in diagnostics
+				publish(payload, -1);
+				count++;
+			}
+		}
+		if (flush(timeoutMillis)) {
+			Files.delete(replaying.toPath());
+		} else {
+			System.out.println("Replay still running after " + timeoutMillis + " ms, keeping " + replaying);
+		}
+		return count;
+	}
+
+	// Method to print queue depth and publish latency metrics, and any result not published
+	public static void printMetrics() {
+		long count = published.get() + failed.get();
+		System.out.println("Result publisher: " + published.get() + " published, " + failed.get() + " failed, "
+				+ spilled.get() + " spilled, queue depth " + queue.size() + " (max " + maxQueueDepth.get()
+				+ "), publish latency avg " + (count == 0 ? 0 : publishNanos.get() / count / 1_000_000) + " ms / max "
+				+ maxPublishNanos.get() / 1_000_000 + " ms");
+		if (spilled.get() > 0) {
+			System.out.println(RED_BOLD_BRIGHT + "⚠️ " + spilled.get() + " test results were not published and are "
+					+ "saved in " + SPILL_FILE.getAbsolutePath() + ", push them again with "
+					+ ResultPublisher.class.getName() + TEXT_RESET);
+		}
+	}
+
+	private static void drainLoop() {
+		List<Result> batch = new ArrayList<Result>(BATCH_SIZE);
+		while (true) {
+			try {
+				Result first = queue.poll(1, TimeUnit.SECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				queue.drainTo(batch, BATCH_SIZE - 1);
+				for (Result result : batch) {
+					publishWithRetry(result);
+				}
+				completed(batch.size());
+				batch.clear();
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	private static void publishWithRetry(Result result) throws InterruptedException {
+		long start = System.nanoTime();
+		int responseCode = -1;
+		for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+			HttpURLConnection conn;
+			try {
+				conn = connect();
+			} catch (IOException e) {
+				// Nothing was sent, safe to try again
+				responseCode = -1;
+				backOff(attempt);
+				continue;
+			}
+			try {
+				responseCode = post(conn, result.payload);
+			} catch (IOException e) {
+				// The receiver may have recorded it; posting again could count it twice
+				responseCode = -1;
+				break;
+			}
+			// 4xx will not change, other 5xx may already be recorded
+			if (responseCode != HttpURLConnection.HTTP_UNAVAILABLE) {
+				break;
+			}
+			backOff(attempt);
+		}
+		long elapsed = System.nanoTime() - start;
+		publishNanos.addAndGet(elapsed);
+		long max;
+		while (elapsed > (max = maxPublishNanos.get()) && !maxPublishNanos.compareAndSet(max, elapsed)) {
+		}
+		if (responseCode == HttpURLConnection.HTTP_OK || responseCode == HttpURLConnection.HTTP_CREATED) {
+			published.incrementAndGet();
+		} else {
+			failed.incrementAndGet();
+			spill(result);
+			System.out.println(RED_BOLD_BRIGHT + "⚠️ Unable to push test cases,please try again! [" + responseCode
+					+ "|" + System.getenv("HOSTNAME") + "|" + System.getenv("ATTEMPT_ID") + "|"
+					+ result.customDataLength + "]" + TEXT_RESET);
+		}
+	}
+
+	private static void backOff(int attempt) throws InterruptedException {
+		if (attempt < MAX_ATTEMPTS) {
+			Thread.sleep(BACKOFF_MILLIS << (attempt - 1));
+		}
+	}
+
+	private static HttpURLConnection connect() throws IOException {
+		HttpURLConnection conn = (HttpURLConnection) new URL(RESULTS_URL).openConnection();
+		conn.setDoOutput(true);
+		conn.setRequestMethod("POST");
+		conn.setRequestProperty("Content-Type", "application/json");
+		conn.setConnectTimeout(5000);
+		conn.setReadTimeout(10000);
+		conn.connect();
+		return conn;
+	}
+
+	// Reading the response fully lets HttpURLConnection keep the connection alive
+	private static int post(HttpURLConnection conn, String payload) throws IOException {
+		OutputStream os = conn.getOutputStream();
+		os.write(payload.getBytes(StandardCharsets.UTF_8));
+		os.close();
+		int responseCode = conn.getResponseCode();
+		InputStream in = responseCode >= 400 ? conn.getErrorStream() : conn.getInputStream();
+		if (in != null) {
+			byte[] buffer = new byte[1024];
+			while (in.read(buffer) != -1) {
+			}
+			in.close();
+		}
+		return responseCode;
+	}
+
+	// One JSON payload per line, kept so unpublished results can be pushed again
+	private static synchronized void spill(Result result) {
+		spilled.incrementAndGet();
+		File parent = SPILL_FILE.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(SPILL_FILE, true), StandardCharsets.UTF_8)) {
+			writer.write(result.payload);
+			writer.write('\n');
+		} catch (IOException e) {
+			System.out.println(RED_BOLD_BRIGHT + "⚠️ Test result lost, spill file not writable: " + e.getMessage()
+					+ "\n" + result.payload + TEXT_RESET);
+		}
+	}
+
+	private static void completed(int count) {
+		if (pending.addAndGet(-count) == 0) {
+			synchronized (drained) {
+				drained.notifyAll();
+			}
+		}
+	}
+
+	// Usage: ResultPublisher, pushes the results saved in results.spill.file again
+	public static void main(String[] args) throws IOException {
+		System.out.println(replay(60000) + " saved results replayed");
+		printMetrics();
+	}
+
+	private static final class Result {
+
+		final String payload;
+		final int customDataLength;
+
+		Result(String payload, int customDataLength) {
+			this.payload = payload;
+			this.customDataLength = customDataLength;
+		}
+	}
+
+}
@@ -0,0 +1,333 @@
+package coreUtilities.testutils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.IRetryAnalyzer;
+import org.testng.ITestResult;
+
+import coreUtilities.utils.ExcelRow;
+import rest.ApiCallListener;
+import restConfig.ConfigManager;
+
+/**
+ * Crash-safe, append-only binary journal of test timings written through a
+ * memory-mapped file. Writers claim a range with one atomic add, fill in the
+ * payload and publish the record by writing its length last, so concurrent
+ * test threads never lock and a reader stops cleanly at the first record that
+ * was not completed. Because the pages belong to the OS page cache, everything
+ * written survives a JVM crash.
+ * 
+ * File layout: {@code [int magic][long runStartMillis]} followed by records of
+ * {@code [int length][byte type][payload]}. Strings are written as an unsigned
+ * short length plus UTF-8 bytes. When a segment fills up the journal continues
+ * in a new numbered file. {@link #close()} truncates every segment to the bytes
+ * written, and only the journals of the last journal.keepRuns runs are kept.
+ */
+public class ResultsJournal implements ApiCallListener {
+
+	static final int MAGIC = 0x4a524e31; // "JRN1"
+	static final int HEADER_SIZE = 12;
+	static final byte TEST_START = 1;
+	static final byte TEST_END = 2;
+	static final byte API_CALL = 3;
+
+	private static final ThreadLocal<String> currentTest = new ThreadLocal<String>();
+	private static final ThreadLocal<ByteBuffer> scratch = new ThreadLocal<ByteBuffer>() {
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocate(64 * 1024);
+		}
+	};
+
+	private final String baseName;
+	private final long segmentSize;
+	private final long runStartMillis = System.currentTimeMillis();
+	private final List<Segment> segments = new ArrayList<Segment>();
+	// Appends in progress, close() waits for them before it unmaps
+	private final AtomicInteger writers = new AtomicInteger();
+	private volatile Segment segment;
+	private volatile boolean closed;
+	private int segmentCount;
+
+	public ResultsJournal() throws IOException {
+		File directory = new File(ConfigManager.getProperty("journal.dir", "TestReport/journal"));
+		directory.mkdirs();
+		String pid = ManagementFactory.getRuntimeMXBean().getName().split("@")[0];
+		// Shard runs share a run id so the merge step can find every shard's journal
+		int shardCount = ConfigManager.getIntProperty("shard.count", 1);
+		String prefix = shardCount > 1
+				? "shard-" + ConfigManager.getProperty("shard.runId", String.valueOf(runStartMillis)) + "-"
+						+ ConfigManager.getIntProperty("shard.index", 0) + "of" + shardCount
+				: "run-" + runStartMillis;
+		this.baseName = new File(directory, prefix + "-" + pid).getPath();
+		this.segmentSize = ConfigManager.getLongProperty("journal.segmentSizeMb", 16) << 20;
+		deleteOldRuns(directory, ConfigManager.getIntProperty("journal.keepRuns", 20),
+				shardCount > 1 ? "shard-" + ConfigManager.getProperty("shard.runId", "") + "-" : null);
+		this.segment = openSegment();
+	}
+
+	// Method to bind the running test to the calling thread, so its API calls are attributed to it
+	public static void setCurrentTest(String testName) {
+		if (testName == null) {
+			currentTest.remove();
+		} else {
+			currentTest.set(testName);
+		}
+	}
+
+	// Method to get the test bound to the calling thread, null outside a test
+	public static String getCurrentTest() {
+		return currentTest.get();
+	}
+
+	/**
+	 * This method records that a test started.
+	 * 
+	 * @param result     - {@link ITestResult} of the test
+	 * @param threadName - {@link String} test thread
+	 */
+	public void testStarted(ITestResult result, String threadName) {
+		ByteBuffer buffer = begin(TEST_START);
+		putString(buffer, testName(result));
+		putString(buffer, threadName);
+		buffer.putLong(result.getStartMillis());
+		append(buffer);
+	}
+
+	/**
+	 * This method records the outcome and timing of a finished test.
+	 * 
+	 * @param result     - {@link ITestResult} of the test
+	 * @param threadName - {@link String} test thread
+	 */
+	public void testFinished(ITestResult result, String threadName) {
+		ByteBuffer buffer = begin(TEST_END);
+		putString(buffer, testName(result));
+		putString(buffer, threadName);
+		buffer.put((byte) result.getStatus());
+		buffer.putInt(retryCount(result));
+		buffer.putLong(result.getStartMillis());
+		buffer.putLong(result.getEndMillis());
+		append(buffer);
+	}
+
+	@Override
+	public void onApiCall(String method, String endpoint, int statusCode, long bytes, long latencyNanos) {
+		String testName = currentTest.get();
+		ByteBuffer buffer = begin(API_CALL);
+		putString(buffer, testName == null ? "" : testName);
+		putString(buffer, Thread.currentThread().getName());
+		putString(buffer, method);
+		putString(buffer, endpoint);
+		buffer.putShort((short) statusCode);
+		buffer.putLong(bytes);
+		buffer.putLong(latencyNanos);
+		buffer.putLong(System.currentTimeMillis());
+		append(buffer);
+	}
+
+	// Method to push written pages to disk, e.g. at the end of the suite
+	public void force() {
+		if (!closed) {
+			segment.region.force();
+		}
+	}
+
+	/**
+	 * This method ends the journal: it forces every segment to disk, unmaps it
+	 * and truncates the file to the bytes written. Records appended afterwards
+	 * are ignored. Call it once, when no more tests run.
+	 */
+	public void close() {
+		// Not held while waiting: a writer may need the lock to roll a segment
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		while (writers.get() > 0) {
+			Thread.yield();
+		}
+		for (Segment written : segments) {
+			written.region.force();
+			long length = Math.min(written.next.get(), written.capacity);
+			unmap(written.region);
+			try (FileChannel channel = FileChannel.open(written.file.toPath(), StandardOpenOption.WRITE)) {
+				channel.truncate(length);
+			} catch (IOException e) {
+				System.out.println("Unable to truncate journal " + written.file + ": " + e.getMessage());
+			}
+		}
+	}
+
+	// Fully qualified test name, as used for history lookups
+	public static String testName(ITestResult result) {
+		return result.getMethod().getQualifiedName();
+	}
+
+	// Test name with the data row appended for data-driven invocations, used
+	// to attribute logs, retries and report entries to a single row
+	public static String scenarioName(ITestResult result) {
+		return testName(result) + rowSuffix(result);
+	}
+
+	// " [row n]" when the invocation is fed an ExcelRow, empty otherwise
+	public static String rowSuffix(ITestResult result) {
+		for (Object parameter : result.getParameters()) {
+			if (parameter instanceof ExcelRow) {
+				return " [row " + ((ExcelRow) parameter).getRowNumber() + "]";
+			}
+		}
+		return "";
+	}
+
+	private static int retryCount(ITestResult result) {
+		IRetryAnalyzer analyzer = result.getMethod().getRetryAnalyzer(result);
+		return analyzer instanceof RetryAnalyzer ? ((RetryAnalyzer) analyzer).getRetryCount() : 0;
+	}
+
+	private static ByteBuffer begin(byte type) {
+		ByteBuffer buffer = scratch.get();
+		buffer.clear();
+		buffer.put(type);
+		return buffer;
+	}
+
+	private static void putString(ByteBuffer buffer, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		int length = Math.min(bytes.length, 0xffff);
+		buffer.putShort((short) length);
+		buffer.put(bytes, 0, length);
+	}
+
+	private void append(ByteBuffer record) {
+		record.flip();
+		int length = record.remaining();
+		writers.incrementAndGet();
+		try {
+			// Checked after registering, so close() cannot unmap under this write
+			while (!closed) {
+				Segment current = segment;
+				long position = current.next.getAndAdd(4 + length);
+				if (position + 4 + length <= current.capacity) {
+					ByteBuffer target = current.region.duplicate();
+					target.position((int) position + 4);
+					target.put(record);
+					// Publishing the length last marks the record as complete
+					current.region.putInt((int) position, length);
+					return;
+				}
+				roll(current);
+			}
+		} finally {
+			writers.decrementAndGet();
+		}
+	}
+
+	private synchronized void roll(Segment full) {
+		if (segment != full || closed) {
+			return;
+		}
+		try {
+			full.region.force();
+			segment = openSegment();
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to open the next journal segment", e);
+		}
+	}
+
+	private Segment openSegment() throws IOException {
+		segmentCount++;
+		File file = new File(baseName + (segmentCount == 1 ? "" : "-" + segmentCount) + ".jnl");
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+			region.putInt(0, MAGIC);
+			region.putLong(4, runStartMillis);
+			Segment opened = new Segment(file, region, segmentSize);
+			segments.add(opened);
+			return opened;
+		}
+	}
+
+	// Journals are grouped into runs by the start time in their header; files of
+	// the running shard set are never deleted
+	private static void deleteOldRuns(File directory, int keepRuns, String currentRunPrefix) {
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(".jnl"));
+		if (keepRuns <= 0 || files == null) {
+			return;
+		}
+		TreeMap<Long, List<File>> runs = new TreeMap<Long, List<File>>();
+		for (File file : files) {
+			if (currentRunPrefix != null && file.getName().startsWith(currentRunPrefix)) {
+				continue;
+			}
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				channel.read(header, 0);
+				long runStart = header.getInt(0) == MAGIC ? header.getLong(4) : file.lastModified();
+				runs.computeIfAbsent(runStart, k -> new ArrayList<File>()).add(file);
+			} catch (IOException e) {
+				// unreadable journals are left alone
+			}
+		}
+		// The run being opened now is one of the kept runs
+		while (runs.size() > keepRuns - 1) {
+			Map.Entry<Long, List<File>> oldest = runs.pollFirstEntry();
+			for (File file : oldest.getValue()) {
+				file.delete();
+			}
+		}
+	}
+
+	// Releases the mapping now instead of at GC; Windows cannot truncate a mapped file
+	private static void unmap(MappedByteBuffer region) {
+		try {
+			try {
+				Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+				Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+				invokeCleaner.invoke(theUnsafe.get(null), region);
+			} catch (NoSuchMethodException e) {
+				// Java 8: DirectByteBuffer.cleaner().clean()
+				Method cleanerMethod = region.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(region);
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+			}
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			System.out.println("Journal segment stays mapped until GC: " + e);
+		}
+	}
+
+	private static class Segment {
+		private final File file;
+		private final MappedByteBuffer region;
+		private final long capacity;
+		private final AtomicLong next = new AtomicLong(HEADER_SIZE);
+
+		private Segment(File file, MappedByteBuffer region, long capacity) {
+			this.file = file;
+			this.region = region;
+			this.capacity = capacity;
+		}
+	}
+
+}
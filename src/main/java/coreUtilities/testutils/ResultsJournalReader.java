@@ -0,0 +1,329 @@
+package coreUtilities.testutils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.testng.ITestResult;
+
+/**
+ * Reads {@link ResultsJournal} files and aggregates them across runs. Journals
+ * are memory-mapped and scanned in parallel, one file per task, without
+ * materialising individual records.
+ */
+public class ResultsJournalReader {
+
+	private final ConcurrentMap<String, Stats> tests = new ConcurrentHashMap<String, Stats>();
+	private final ConcurrentMap<String, Stats> endpoints = new ConcurrentHashMap<String, Stats>();
+
+	/**
+	 * This method aggregates every journal file found in a directory.
+	 * 
+	 * @param directory - {@link File} containing *.jnl files
+	 * @return {@link ResultsJournalReader} holding the aggregates
+	 */
+	public static ResultsJournalReader aggregate(File directory) {
+		return aggregate(directory, "");
+	}
+
+	/**
+	 * This method aggregates the journal files in a directory whose names start
+	 * with the given prefix, e.g. the journals of one sharded run.
+	 * 
+	 * @param directory - {@link File} containing *.jnl files
+	 * @param prefix    - {@link String} file name prefix
+	 * @return {@link ResultsJournalReader} holding the aggregates
+	 */
+	public static ResultsJournalReader aggregate(File directory, String prefix) {
+		ResultsJournalReader reader = new ResultsJournalReader();
+		Arrays.stream(journalFiles(directory, prefix)).parallel().forEach(reader::scan);
+		return reader;
+	}
+
+	/**
+	 * This method reads the finished-test records of the matching journal files,
+	 * ordered by start time.
+	 * 
+	 * @param directory - {@link File} containing *.jnl files
+	 * @param prefix    - {@link String} file name prefix
+	 * @return {@link List} of {@link TestRecord}
+	 */
+	public static List<TestRecord> readTestRecords(File directory, String prefix) {
+		final List<TestRecord> records = Collections.synchronizedList(new ArrayList<TestRecord>());
+		ResultsJournalReader reader = new ResultsJournalReader() {
+			@Override
+			void onTestRecord(TestRecord record) {
+				records.add(record);
+			}
+		};
+		Arrays.stream(journalFiles(directory, prefix)).parallel().forEach(reader::scan);
+		List<TestRecord> sorted = new ArrayList<TestRecord>(records);
+		sorted.sort((first, second) -> Long.compare(first.getStartMillis(), second.getStartMillis()));
+		return sorted;
+	}
+
+	private static File[] journalFiles(File directory, String prefix) {
+		File[] files = directory.listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(".jnl"));
+		return files == null ? new File[0] : files;
+	}
+
+	// Hook for callers that need the individual test records
+	void onTestRecord(TestRecord record) {
+	}
+
+	// Method to get the mean duration in milliseconds of every test seen in the journals
+	public Map<String, Long> getMeanTestDurations() {
+		Map<String, Long> durations = new TreeMap<String, Long>();
+		for (Map.Entry<String, Stats> entry : tests.entrySet()) {
+			durations.put(entry.getKey(), entry.getValue().mean());
+		}
+		return durations;
+	}
+
+	// Per test aggregates keyed by qualified test name
+	public Map<String, Stats> getTestStats() {
+		return Collections.unmodifiableMap(new TreeMap<String, Stats>(tests));
+	}
+
+	// Per endpoint latency aggregates, in milliseconds, keyed by "METHOD endpoint"
+	public Map<String, Stats> getEndpointStats() {
+		return Collections.unmodifiableMap(new TreeMap<String, Stats>(endpoints));
+	}
+
+	public void print() {
+		print(System.out);
+	}
+
+	public void print(PrintStream out) {
+		out.println(String.format("%-70s %6s %6s %6s %6s %8s %8s %8s", "TEST", "RUNS", "PASS", "FAIL",
+				"SKIP", "RETRIES", "MEAN ms", "P95 ms"));
+		for (Map.Entry<String, Stats> entry : getTestStats().entrySet()) {
+			Stats stats = entry.getValue();
+			out.println(String.format("%-70s %6d %6d %6d %6d %8d %8d %8d", entry.getKey(), stats.count(),
+					stats.passed, stats.failed, stats.skipped, stats.retries, stats.mean(), stats.percentile(95)));
+		}
+		out.println(String.format("%n%-70s %6s %8s %8s %8s", "ENDPOINT", "CALLS", "MEAN ms", "P95 ms",
+				"MAX ms"));
+		for (Map.Entry<String, Stats> entry : getEndpointStats().entrySet()) {
+			Stats stats = entry.getValue();
+			out.println(String.format("%-70s %6d %8d %8d %8d", entry.getKey(), stats.count(), stats.mean(),
+					stats.percentile(95), stats.percentile(100)));
+		}
+	}
+
+	private void scan(File file) {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < ResultsJournal.HEADER_SIZE || buffer.getInt(0) != ResultsJournal.MAGIC) {
+				return;
+			}
+			buffer.position(ResultsJournal.HEADER_SIZE);
+			while (buffer.remaining() >= 4) {
+				int length = buffer.getInt();
+				if (length <= 0 || length > buffer.remaining()) {
+					break;
+				}
+				int end = buffer.position() + length;
+				readRecord(buffer);
+				buffer.position(end);
+			}
+		} catch (IOException e) {
+			System.out.println("Unable to read journal " + file + ": " + e.getMessage());
+		}
+	}
+
+	private void readRecord(ByteBuffer buffer) {
+		byte type = buffer.get();
+		if (type == ResultsJournal.TEST_END) {
+			String test = getString(buffer);
+			String thread = getString(buffer);
+			byte status = buffer.get();
+			int retries = buffer.getInt();
+			long start = buffer.getLong();
+			long end = buffer.getLong();
+			onTestRecord(new TestRecord(test, thread, status, retries, start, end));
+			Stats stats = stats(tests, test);
+			synchronized (stats) {
+				stats.add(end - start);
+				stats.retries += retries;
+				if (status == ITestResult.SUCCESS) {
+					stats.passed++;
+				} else if (status == ITestResult.FAILURE) {
+					stats.failed++;
+				} else {
+					stats.skipped++;
+				}
+			}
+		} else if (type == ResultsJournal.API_CALL) {
+			getString(buffer);
+			getString(buffer);
+			String method = getString(buffer);
+			String endpoint = getString(buffer);
+			buffer.getShort();
+			buffer.getLong();
+			long latencyNanos = buffer.getLong();
+			Stats stats = stats(endpoints, method + " " + endpoint);
+			synchronized (stats) {
+				stats.add(latencyNanos / 1_000_000);
+			}
+		}
+	}
+
+	private static Stats stats(ConcurrentMap<String, Stats> map, String key) {
+		Stats stats = map.get(key);
+		if (stats == null) {
+			Stats created = new Stats();
+			stats = map.putIfAbsent(key, created);
+			if (stats == null) {
+				stats = created;
+			}
+		}
+		return stats;
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		int length = buffer.getShort() & 0xffff;
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Aggregated samples (milliseconds) and outcome counts.
+	 */
+	public static class Stats {
+		private long[] samples = new long[16];
+		private int size;
+		private boolean sorted = true;
+		private int passed;
+		private int failed;
+		private int skipped;
+		private int retries;
+
+		public synchronized void add(long value) {
+			if (size == samples.length) {
+				samples = Arrays.copyOf(samples, size * 2);
+			}
+			sorted &= size == 0 || samples[size - 1] <= value;
+			samples[size++] = value;
+		}
+
+		public synchronized int count() {
+			return size;
+		}
+
+		public synchronized long mean() {
+			long total = 0;
+			for (int i = 0; i < size; i++) {
+				total += samples[i];
+			}
+			return size == 0 ? 0 : total / size;
+		}
+
+		public synchronized long percentile(int percentile) {
+			if (size == 0) {
+				return 0;
+			}
+			if (!sorted) {
+				Arrays.sort(samples, 0, size);
+				sorted = true;
+			}
+			int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+			return samples[Math.max(0, Math.min(size - 1, index))];
+		}
+
+		public synchronized List<Long> samples() {
+			List<Long> values = new ArrayList<Long>(size);
+			for (int i = 0; i < size; i++) {
+				values.add(samples[i]);
+			}
+			return values;
+		}
+
+		public synchronized int getPassed() {
+			return passed;
+		}
+
+		public synchronized int getFailed() {
+			return failed;
+		}
+
+		public synchronized int getSkipped() {
+			return skipped;
+		}
+
+		public synchronized int getRetries() {
+			return retries;
+		}
+	}
+
+	/**
+	 * One finished test read from a journal.
+	 */
+	public static class TestRecord {
+		private final String testName;
+		private final String threadName;
+		private final int status;
+		private final int retries;
+		private final long startMillis;
+		private final long endMillis;
+
+		public TestRecord(String testName, String threadName, int status, int retries, long startMillis,
+				long endMillis) {
+			this.testName = testName;
+			this.threadName = threadName;
+			this.status = status;
+			this.retries = retries;
+			this.startMillis = startMillis;
+			this.endMillis = endMillis;
+		}
+
+		public String getTestName() {
+			return testName;
+		}
+
+		public String getThreadName() {
+			return threadName;
+		}
+
+		// TestNG status: ITestResult.SUCCESS, FAILURE or SKIP
+		public int getStatus() {
+			return status;
+		}
+
+		public int getRetries() {
+			return retries;
+		}
+
+		public long getStartMillis() {
+			return startMillis;
+		}
+
+		public long getEndMillis() {
+			return endMillis;
+		}
+	}
+
+	// Usage: ResultsJournalReader [journal directory]
+	public static void main(String[] args) {
+		File directory = new File(args.length > 0 ? args[0] : "TestReport/journal");
+		long start = System.nanoTime();
+		ResultsJournalReader reader = aggregate(directory);
+		reader.print();
+		System.out.println("\nAggregated " + directory + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+	}
+
+}
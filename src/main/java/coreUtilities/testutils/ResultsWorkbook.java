@@ -0,0 +1,237 @@
+package coreUtilities.testutils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.testng.ITestResult;
+
+import rest.ApiCallListener;
+import restConfig.ConfigManager;
+
+/**
+ * Excel results workbook with one row per test on the "Tests" sheet and one row
+ * per API call on the "API Calls" sheet, written through SXSSF so only
+ * results.workbook.window rows per sheet are held in memory; older rows go to
+ * compressed temporary files. Rows are appended on the test event consumer
+ * thread, which owns the workbook. API calls are collected per test thread and
+ * attached to the test result when the test finishes, so the workbook stays
+ * flat in memory however long the run is.
+ */
+public class ResultsWorkbook implements ApiCallListener {
+
+	private static final String API_CALLS = "apiCalls";
+	private static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+	private static final String[] TEST_HEADERS = { "Test", "Status", "Thread", "Start", "Duration (ms)", "Retried",
+			"API calls", "API time (ms)", "Response bytes" };
+	private static final String[] CALL_HEADERS = { "Test", "Method", "Endpoint", "Status", "Latency (ms)",
+			"Response bytes" };
+
+	private static ResultsWorkbook instance;
+
+	private final ThreadLocal<List<ApiCall>> calls = new ThreadLocal<List<ApiCall>>();
+	private final File file;
+	private final SXSSFWorkbook workbook;
+	private final CellStyle headerStyle;
+	private final CellStyle dateStyle;
+	private SXSSFSheet testSheet;
+	private SXSSFSheet callSheet;
+	private int testRows;
+	private int callRows;
+	private int callSheets;
+	private boolean closed;
+
+	private ResultsWorkbook(File file, int window) {
+		this.file = file;
+		this.workbook = new SXSSFWorkbook(window);
+		workbook.setCompressTempFiles(true);
+		headerStyle = workbook.createCellStyle();
+		Font bold = workbook.createFont();
+		bold.setBold(true);
+		headerStyle.setFont(bold);
+		dateStyle = workbook.createCellStyle();
+		dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+		testSheet = newSheet("Tests", TEST_HEADERS);
+		testRows = 1;
+		newCallSheet();
+	}
+
+	/**
+	 * This method creates the workbook when results.workbook.enabled is true
+	 * (default). The file is results.workbook.file, with a shard suffix when the
+	 * suite is sharded.
+	 *
+	 * @return {@link ResultsWorkbook}, null when disabled
+	 */
+	public static synchronized ResultsWorkbook open() {
+		if (instance == null && ConfigManager.getBooleanProperty("results.workbook.enabled", true)) {
+			String name = ConfigManager.getProperty("results.workbook.file", "TestReport/results.xlsx");
+			if (ConfigManager.getIntProperty("shard.count", 1) > 1) {
+				name = name.replace(".xlsx", "-shard" + ConfigManager.getIntProperty("shard.index", 0) + ".xlsx");
+			}
+			instance = new ResultsWorkbook(new File(name), ConfigManager.getIntProperty("results.workbook.window", 100));
+		}
+		return instance;
+	}
+
+	/**
+	 * This method moves the API calls the current thread made during the test
+	 * onto the result, for the consumer thread to write. Call it on the test
+	 * thread before the finish event is published.
+	 *
+	 * @param result - {@link ITestResult} of the finished test
+	 */
+	public static void attachCalls(ITestResult result) {
+		ResultsWorkbook workbook = instance;
+		if (workbook != null) {
+			List<ApiCall> testCalls = workbook.calls.get();
+			workbook.calls.remove();
+			result.setAttribute(API_CALLS, testCalls == null ? Collections.<ApiCall>emptyList() : testCalls);
+		}
+	}
+
+	@Override
+	public void onApiCall(String method, String endpoint, int statusCode, long bytes, long latencyNanos) {
+		// Warm-up and suite level calls belong to no test
+		if (ResultsJournal.getCurrentTest() == null) {
+			return;
+		}
+		List<ApiCall> testCalls = calls.get();
+		if (testCalls == null) {
+			testCalls = new ArrayList<ApiCall>();
+			calls.set(testCalls);
+		}
+		testCalls.add(new ApiCall(method, endpoint, statusCode, bytes, latencyNanos));
+	}
+
+	/**
+	 * This method appends the rows of a finished test. Consumer thread only.
+	 *
+	 * @param result - {@link ITestResult} of the finished test
+	 * @param status - {@link String} PASSED, FAILED, SKIPPED or RETRIED for an
+	 *               attempt TestNG runs again
+	 * @param thread - {@link String} test thread
+	 */
+	@SuppressWarnings("unchecked")
+	public void testFinished(ITestResult result, String status, String thread) {
+		if (closed) {
+			return;
+		}
+		String test = ResultsJournal.scenarioName(result);
+		Object attached = result.removeAttribute(API_CALLS);
+		List<ApiCall> testCalls = attached == null ? Collections.<ApiCall>emptyList() : (List<ApiCall>) attached;
+		long apiNanos = 0;
+		long bytes = 0;
+		for (ApiCall call : testCalls) {
+			if (callRows == MAX_ROWS) {
+				newCallSheet();
+			}
+			Row row = callSheet.createRow(callRows++);
+			row.createCell(0).setCellValue(test);
+			row.createCell(1).setCellValue(call.method);
+			row.createCell(2).setCellValue(call.endpoint);
+			row.createCell(3).setCellValue(call.statusCode);
+			row.createCell(4).setCellValue(call.latencyNanos / 1e6);
+			row.createCell(5).setCellValue(call.bytes);
+			apiNanos += call.latencyNanos;
+			bytes += call.bytes;
+		}
+		if (testRows == MAX_ROWS) {
+			return;
+		}
+		Row row = testSheet.createRow(testRows++);
+		row.createCell(0).setCellValue(test);
+		row.createCell(1).setCellValue(status);
+		row.createCell(2).setCellValue(thread);
+		if (result.getStartMillis() > 0) {
+			row.createCell(3).setCellValue(new Date(result.getStartMillis()));
+			row.getCell(3).setCellStyle(dateStyle);
+			row.createCell(4).setCellValue(Math.max(0, result.getEndMillis() - result.getStartMillis()));
+		}
+		row.createCell(5).setCellValue(result.wasRetried());
+		row.createCell(6).setCellValue(testCalls.size());
+		row.createCell(7).setCellValue(apiNanos / 1e6);
+		row.createCell(8).setCellValue(bytes);
+	}
+
+	/**
+	 * This method writes the workbook and deletes the temporary files. Later
+	 * results are ignored, so call it once per run, on the consumer thread after
+	 * the last event.
+	 */
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		try (OutputStream out = new FileOutputStream(file)) {
+			workbook.write(out);
+			System.out.println("Results workbook: " + (testRows - 1) + " tests, " + callRowsTotal()
+					+ " API calls written to " + file.getPath());
+		} catch (IOException e) {
+			System.out.println("Results workbook not written: " + e.getMessage());
+		} finally {
+			workbook.dispose();
+			try {
+				workbook.close();
+			} catch (IOException e) {
+				// temporary files are already gone
+			}
+		}
+	}
+
+	private long callRowsTotal() {
+		return (long) (callSheets - 1) * (MAX_ROWS - 1) + callRows - 1;
+	}
+
+	// A sheet holds at most 1,048,576 rows, calls continue on "API Calls 2" and on
+	private void newCallSheet() {
+		callSheets++;
+		callSheet = newSheet(callSheets == 1 ? "API Calls" : "API Calls " + callSheets, CALL_HEADERS);
+		callRows = 1;
+	}
+
+	private SXSSFSheet newSheet(String name, String[] headers) {
+		SXSSFSheet sheet = workbook.createSheet(name);
+		Row header = sheet.createRow(0);
+		for (int i = 0; i < headers.length; i++) {
+			header.createCell(i).setCellValue(headers[i]);
+			header.getCell(i).setCellStyle(headerStyle);
+		}
+		sheet.createFreezePane(0, 1);
+		return sheet;
+	}
+
+	private static final class ApiCall {
+
+		final String method;
+		final String endpoint;
+		final int statusCode;
+		final long bytes;
+		final long latencyNanos;
+
+		ApiCall(String method, String endpoint, int statusCode, long bytes, long latencyNanos) {
+			this.method = method;
+			this.endpoint = endpoint;
+			this.statusCode = statusCode;
+			this.bytes = bytes;
+			this.latencyNanos = latencyNanos;
+		}
+	}
+
+}
@@ -1,20 +1,127 @@
 package coreUtilities.testutils;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.testng.IRetryAnalyzer;
 import org.testng.ITestResult;
 
+import coreUtilities.utils.ExtentReportManager;
+import restConfig.ConfigManager;
+
+/**
+ * Retries a failed test only when {@link FailureClassifier} finds a transient
+ * cause (timeout, connection error or 5xx), at most retry.maxPerTest times per test
+ * and within a suite-wide budget of retry.budget retries. Assertion failures
+ * are reported on the first attempt. Every failure is counted per test so the
+ * run ends with a flakiness report.
+ */
 public class RetryAnalyzer implements IRetryAnalyzer {
+
+	private static final String FLAKINESS_FILE_NAME = "flakiness.txt";
+
+	private static final int maxRetryLimit = ConfigManager.getIntProperty("retry.maxPerTest", 2);
+	private static final AtomicInteger budget = new AtomicInteger(ConfigManager.getIntProperty("retry.budget", 10));
+	private static final ConcurrentMap<String, Flakiness> flakiness = new ConcurrentHashMap<String, Flakiness>();
+
 	int count = 0;
-	int maxRetryLimit = 0;
 
 	@Override
 	public boolean retry(ITestResult result) {
-
-		if (count < maxRetryLimit) {
+		FailureClassifier.Cause cause = FailureClassifier.classify(result.getThrowable());
+		Flakiness stats = flakiness(result);
+		boolean retry = cause.isRetryable() && count < maxRetryLimit && takeFromBudget();
+		synchronized (stats) {
+			stats.failures.merge(cause, 1, Integer::sum);
+			if (retry) {
+				stats.retries++;
+			}
+		}
+		if (retry) {
 			count++;
-			return true;
+			System.out.println("Retrying " + result.getMethod().getMethodName() + " after " + cause + " ("
+					+ budget.get() + " retries left in the budget)");
 		}
-		return false;
+		return retry;
+	}
+
+	// Number of retries granted so far
+	public int getRetryCount() {
+		return count;
+	}
+
+	/**
+	 * This method records a passed test; a pass after retries marks the test as
+	 * flaky.
+	 * 
+	 * @param result - {@link ITestResult} of the passed attempt
+	 */
+	public static void testPassed(ITestResult result) {
+		Flakiness stats = flakiness.get(ResultsJournal.scenarioName(result));
+		if (stats != null) {
+			synchronized (stats) {
+				stats.passedAfterRetry = true;
+			}
+		}
+	}
+
+	private static boolean takeFromBudget() {
+		int left;
+		do {
+			left = budget.get();
+			if (left <= 0) {
+				return false;
+			}
+		} while (!budget.compareAndSet(left, left - 1));
+		return true;
+	}
+
+	private static Flakiness flakiness(ITestResult result) {
+		return flakiness.computeIfAbsent(ResultsJournal.scenarioName(result), name -> new Flakiness());
+	}
+
+	// Method to print the per test failure causes and retries, also written to TestReport/flakiness.txt
+	public static void printFlakinessReport() {
+		if (flakiness.isEmpty()) {
+			return;
+		}
+		printFlakinessReport(System.out);
+		File file = new File(ExtentReportManager.getReportPath(), FLAKINESS_FILE_NAME);
+		try (PrintStream out = new PrintStream(file, "UTF-8")) {
+			printFlakinessReport(out);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static void printFlakinessReport(PrintStream out) {
+		out.println(String.format("%-70s %8s %8s %6s  %s", "TEST", "FAILURES", "RETRIES", "FLAKY", "CAUSES"));
+		for (Map.Entry<String, Flakiness> entry : new TreeMap<String, Flakiness>(flakiness).entrySet()) {
+			Flakiness stats = entry.getValue();
+			synchronized (stats) {
+				int failures = 0;
+				for (int failuresOfCause : stats.failures.values()) {
+					failures += failuresOfCause;
+				}
+				out.println(String.format("%-70s %8d %8d %6s  %s", entry.getKey(), failures, stats.retries,
+						stats.passedAfterRetry ? "yes" : "no", stats.failures));
+			}
+		}
+		out.println("Retry budget left: " + budget.get());
+	}
+
+	private static class Flakiness {
+		private final Map<FailureClassifier.Cause, Integer> failures = new EnumMap<FailureClassifier.Cause, Integer>(
+				FailureClassifier.Cause.class);
+		private int retries;
+		private boolean passedAfterRetry;
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package coreUtilities.testutils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs a suite split across several JVMs and merges their results. Every shard
+ * is a plain TestNG run started with -Dshard.index and -Dshard.count, so the
+ * {@link coreUtilities.testlisteners.ShardInterceptor} decides which tests it
+ * keeps, and all shards share one -Dshard.runId for the merge step.
+ */
+public class ShardLauncher {
+
+	/**
+	 * This method starts the shards, waits for all of them and merges the
+	 * results.
+	 * 
+	 * @param shardCount - number of JVMs to start
+	 * @param suiteFiles - {@link List} of TestNG suite files
+	 * @return number of shards that exited with a non-zero code
+	 * @throws Exception when a shard cannot be started or the merge fails
+	 */
+	public static int run(int shardCount, List<String> suiteFiles) throws Exception {
+		String runId = String.valueOf(System.currentTimeMillis());
+		File outputDirectory = new File("test-output");
+		outputDirectory.mkdirs();
+		String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+
+		List<Process> shards = new ArrayList<Process>();
+		for (int index = 0; index < shardCount; index++) {
+			File shardDirectory = ShardMerger.shardDirectory(outputDirectory, runId, index);
+			List<String> command = new ArrayList<String>(Arrays.asList(java, "-cp",
+					System.getProperty("java.class.path"), "-Dshard.index=" + index, "-Dshard.count=" + shardCount,
+					"-Dshard.runId=" + runId, "org.testng.TestNG", "-d",
+					shardDirectory.getPath()));
+			command.addAll(suiteFiles);
+			ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true)
+					.redirectOutput(new File(outputDirectory, shardDirectory.getName() + ".log"));
+			shards.add(builder.start());
+			System.out.println("Started shard " + index + " of " + shardCount);
+		}
+
+		int failedShards = 0;
+		for (int index = 0; index < shards.size(); index++) {
+			int exitCode = shards.get(index).waitFor();
+			System.out.println("Shard " + index + " finished with exit code " + exitCode);
+			if (exitCode != 0) {
+				failedShards++;
+			}
+		}
+		ShardMerger.merge(outputDirectory, runId, shardCount);
+		return failedShards;
+	}
+
+	// Usage: ShardLauncher <shard count> [suite files, default testng.xml]
+	public static void main(String[] args) throws Exception {
+		int shardCount = Integer.parseInt(args[0]);
+		List<String> suiteFiles = args.length > 1 ? Arrays.asList(args).subList(1, args.length)
+				: Arrays.asList("testng.xml");
+		System.exit(run(shardCount, suiteFiles) == 0 ? 0 : 1);
+	}
+
+}
@@ -0,0 +1,183 @@
+package coreUtilities.testutils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.testng.ITestResult;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+
+import coreUtilities.utils.ExtentReportManager;
+import restConfig.ConfigManager;
+
+/**
+ * Merges the output of a sharded run into one result set: the per shard
+ * testng-results.xml files, one Extent report built from every shard's journal
+ * and one metrics summary. Only the shard-&lt;runId&gt;-&lt;index&gt; folders of
+ * the given run are read, so output left over from earlier runs is never
+ * counted. Failure messages and stack traces in the merged Extent report come
+ * from the shards' testng-results.xml.
+ */
+public class ShardMerger {
+
+	private static final String[] COUNTERS = { "total", "passed", "failed", "skipped", "ignored" };
+
+	/**
+	 * This method merges the outputs of the shards of one run.
+	 * 
+	 * @param outputDirectory - {@link File} holding the shard output folders
+	 * @param runId           - {@link String} run id the shards were started with
+	 * @param shardCount      - number of shards the run was split into
+	 * @throws Exception when the TestNG results cannot be read or written
+	 */
+	public static void merge(File outputDirectory, String runId, int shardCount) throws Exception {
+		File mergedDirectory = new File(outputDirectory, "merged");
+		mergedDirectory.mkdirs();
+		Map<String, Deque<String>> failures = new HashMap<String, Deque<String>>();
+		mergeTestNgResults(outputDirectory, runId, shardCount, new File(mergedDirectory, "testng-results.xml"),
+				failures);
+
+		File journalDirectory = new File(ConfigManager.getProperty("journal.dir", "TestReport/journal"));
+		String prefix = "shard-" + runId + "-";
+		mergeExtentReport(ResultsJournalReader.readTestRecords(journalDirectory, prefix), failures);
+
+		ResultsJournalReader metrics = ResultsJournalReader.aggregate(journalDirectory, prefix);
+		try (PrintStream out = new PrintStream(new File(mergedDirectory, "metrics-summary.txt"), "UTF-8")) {
+			metrics.print(out);
+		}
+		metrics.print();
+	}
+
+	// Method to get the TestNG output folder of one shard of a run
+	public static File shardDirectory(File outputDirectory, String runId, int index) {
+		return new File(outputDirectory, "shard-" + runId + "-" + index);
+	}
+
+	private static void mergeTestNgResults(File outputDirectory, String runId, int shardCount, File mergedFile,
+			Map<String, Deque<String>> failures) throws Exception {
+		DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+		Document merged = builder.newDocument();
+		Element root = merged.createElement("testng-results");
+		merged.appendChild(root);
+		long[] totals = new long[COUNTERS.length];
+		List<Element> failedMethods = new ArrayList<Element>();
+		int found = 0;
+		for (int index = 0; index < shardCount; index++) {
+			File shardDirectory = shardDirectory(outputDirectory, runId, index);
+			File results = new File(shardDirectory, "testng-results.xml");
+			if (!results.isFile()) {
+				System.out.println("Missing results for " + shardDirectory.getName());
+				continue;
+			}
+			found++;
+			Element shardRoot = builder.parse(results).getDocumentElement();
+			NodeList methods = shardRoot.getElementsByTagName("test-method");
+			for (int i = 0; i < methods.getLength(); i++) {
+				Element method = (Element) methods.item(i);
+				if (!"true".equals(method.getAttribute("is-config"))
+						&& method.getElementsByTagName("exception").getLength() > 0) {
+					failedMethods.add(method);
+				}
+			}
+			for (int i = 0; i < COUNTERS.length; i++) {
+				String value = shardRoot.getAttribute(COUNTERS[i]);
+				totals[i] += value.isEmpty() ? 0 : Long.parseLong(value);
+			}
+			NodeList children = shardRoot.getChildNodes();
+			for (int i = 0; i < children.getLength(); i++) {
+				Node child = children.item(i);
+				if (child.getNodeType() == Node.ELEMENT_NODE && !"reporter-output".equals(child.getNodeName())) {
+					root.appendChild(merged.importNode(child, true));
+				}
+			}
+		}
+		if (found == 0) {
+			throw new FileNotFoundException("No shard output of run " + runId + " found in " + outputDirectory);
+		}
+		for (int i = 0; i < COUNTERS.length; i++) {
+			root.setAttribute(COUNTERS[i], String.valueOf(totals[i]));
+		}
+		// Timestamps sort as text; the stable sort keeps document order for ties
+		failedMethods.sort((first, second) -> first.getAttribute("started-at")
+				.compareTo(second.getAttribute("started-at")));
+		for (Element method : failedMethods) {
+			String testName = ((Element) method.getParentNode()).getAttribute("name") + "."
+					+ method.getAttribute("name");
+			failures.computeIfAbsent(testName, k -> new ArrayDeque<String>()).add(failureDetails(method));
+		}
+		Transformer transformer = TransformerFactory.newInstance().newTransformer();
+		transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+		transformer.transform(new DOMSource(merged), new StreamResult(mergedFile));
+		System.out.println("Merged TestNG results: " + mergedFile.getPath());
+	}
+
+	// Stack trace of a failed or skipped test-method, or its message when there is none
+	private static String failureDetails(Element method) {
+		Element exception = (Element) method.getElementsByTagName("exception").item(0);
+		NodeList trace = exception.getElementsByTagName("full-stacktrace");
+		if (trace.getLength() > 0 && !trace.item(0).getTextContent().trim().isEmpty()) {
+			return trace.item(0).getTextContent().trim();
+		}
+		NodeList message = exception.getElementsByTagName("message");
+		return exception.getAttribute("class")
+				+ (message.getLength() > 0 ? ": " + message.item(0).getTextContent().trim() : "");
+	}
+
+	// Journal records of a test name take its failure details in start order
+	private static void mergeExtentReport(List<ResultsJournalReader.TestRecord> records,
+			Map<String, Deque<String>> failures) {
+		ExtentReports extent = ExtentReportManager.createInstance("ExtentReports-Merged.html");
+		for (ResultsJournalReader.TestRecord record : records) {
+			ExtentTest test = extent.createTest(record.getTestName());
+			test.getModel().setStartTime(new Date(record.getStartMillis()));
+			test.getModel().setEndTime(new Date(record.getEndMillis()));
+			String details = "Thread " + record.getThreadName() + ", retries " + record.getRetries();
+			if (record.getStatus() == ITestResult.SUCCESS) {
+				test.pass(details);
+				continue;
+			}
+			Deque<String> testFailures = failures.get(record.getTestName());
+			String failure = testFailures == null ? null : testFailures.poll();
+			if (record.getStatus() == ITestResult.FAILURE) {
+				test.fail(details);
+				if (failure != null) {
+					test.fail(MarkupHelper.createCodeBlock(failure));
+				}
+			} else {
+				test.skip(details);
+				if (failure != null) {
+					test.skip(MarkupHelper.createCodeBlock(failure));
+				}
+			}
+		}
+		extent.flush();
+	}
+
+	// Usage: ShardMerger <run id> <shard count> [output directory]
+	public static void main(String[] args) throws Exception {
+		merge(new File(args.length > 2 ? args[2] : "test-output"), args[0], Integer.parseInt(args[1]));
+	}
+
+}
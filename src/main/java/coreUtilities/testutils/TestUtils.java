@@ -4,10 +4,6 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -117,44 +113,8 @@ public class TestUtils {
 		int length = 0;
 		if(customData != null) {length = customData.length(); }
 
-		try {
-
-			URL url = new URL(URL);
-			HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-			conn.setDoOutput(true);
-			conn.setRequestMethod("POST");
-			conn.setRequestProperty("Content-Type", "application/json");
-
-			//	String input = "{\"qty\":100,\"name\":\"iPad 4\"}";
-			String input = asJsonString(testResults);
-			OutputStream os = conn.getOutputStream();
-			os.write(input.getBytes());
-			os.flush();
-			os.close();
-
-			int responseCode = conn.getResponseCode();
-			if (!(responseCode == HttpURLConnection.HTTP_OK  || responseCode == HttpURLConnection.HTTP_CREATED)) {
-				System.out.println(RED_BOLD_BRIGHT + "⚠️ Unable to push test cases,please try again! [" + responseCode +"|" + hostName +"|" + AttemptId + "|" + length + "]" + TEXT_RESET);
-			}
-
-			// BufferedReader br = new BufferedReader(new InputStreamReader((conn.getInputStream())));
-
-			// // String output;
-			// // while ((output = br.readLine()) != null) {
-			// // 	System.out.println(output);
-			// // }
-
-			conn.disconnect();
-
-		} catch (MalformedURLException e) {
-
-			e.printStackTrace();
-
-		} catch (IOException e) {
-
-			e.printStackTrace();
-
-		}
+		// Published asynchronously so a slow results endpoint never stalls the test threads
+		ResultPublisher.publish(asJsonString(testResults), length);
 
 		total++;
 		String[] r = testName.split("(?=\\p{Upper})");
@@ -0,0 +1,88 @@
+package coreUtilities.utils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One data row read by {@link ExcelStreamReader}, with typed access by header
+ * name. Numbers keep the text stored in the sheet and dates are ISO-8601
+ * local date times, so the typed getters parse exactly what the sheet holds.
+ */
+public class ExcelRow {
+
+	private final int rowNumber;
+	private final List<String> headers;
+	private final String[] values;
+
+	ExcelRow(int rowNumber, List<String> headers, String[] values) {
+		this.rowNumber = rowNumber;
+		this.headers = headers;
+		this.values = values;
+	}
+
+	// 1-based row number in the sheet, for attributing results to a row
+	public int getRowNumber() {
+		return rowNumber;
+	}
+
+	// Number of columns up to the last one with a value
+	int width() {
+		return values.length;
+	}
+
+	public List<String> getHeaders() {
+		return headers;
+	}
+
+	// Method to get a cell by column index, null for an empty cell
+	public String get(int column) {
+		return column < values.length ? values[column] : null;
+	}
+
+	// Method to get a cell by header name, null for an empty cell
+	public String getString(String header) {
+		int column = headers.indexOf(header);
+		if (column < 0) {
+			throw new IllegalArgumentException("No column " + header + " in " + headers);
+		}
+		return get(column);
+	}
+
+	public int getInt(String header) {
+		return (int) getDouble(header);
+	}
+
+	public long getLong(String header) {
+		return (long) getDouble(header);
+	}
+
+	public double getDouble(String header) {
+		String value = getString(header);
+		if (value == null) {
+			throw new IllegalStateException("Empty cell " + header + " in row " + rowNumber);
+		}
+		return Double.parseDouble(value);
+	}
+
+	public boolean getBoolean(String header) {
+		return Boolean.parseBoolean(getString(header));
+	}
+
+	// Method to get the row as header to value map, skipping empty cells
+	public Map<String, String> toMap() {
+		Map<String, String> map = new LinkedHashMap<String, String>();
+		for (int i = 0; i < headers.size(); i++) {
+			if (get(i) != null) {
+				map.put(headers.get(i), get(i));
+			}
+		}
+		return map;
+	}
+
+	@Override
+	public String toString() {
+		return "row " + rowNumber + " " + toMap();
+	}
+
+}
@@ -0,0 +1,289 @@
+package coreUtilities.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+
+/**
+ * Streams the rows of one .xlsx sheet without building the POI object model.
+ * The sheet XML is pulled one row at a time, so memory stays flat however many
+ * rows the sheet has; only the workbook's shared string table is held. The
+ * first non-empty row is the header row, every following row becomes an
+ * {@link ExcelRow}.
+ * 
+ * Close the stream (try-with-resources) when not reading it to the end; an
+ * iterator closes the file itself once exhausted.
+ */
+public class ExcelStreamReader implements Iterator<ExcelRow>, AutoCloseable {
+
+	private static final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+
+	private final OPCPackage workbook;
+	private final ReadOnlySharedStringsTable sharedStrings;
+	private final StylesTable styles;
+	private final InputStream sheetStream;
+	private final XMLStreamReader xml;
+	private final List<String> headers;
+	private ExcelRow next;
+	private boolean closed;
+
+	/**
+	 * This method opens a sheet for streaming.
+	 * 
+	 * @param excelFilePath - {@link String} .xlsx file location
+	 * @param sheetName     - {@link String} sheet name
+	 * @throws IOException when the workbook cannot be read or has no such sheet
+	 */
+	public ExcelStreamReader(String excelFilePath, String sheetName) throws IOException {
+		try {
+			workbook = OPCPackage.open(new File(excelFilePath), PackageAccess.READ);
+			XSSFReader reader = new XSSFReader(workbook);
+			sharedStrings = new ReadOnlySharedStringsTable(workbook);
+			styles = reader.getStylesTable();
+			sheetStream = openSheet(reader, sheetName);
+			if (sheetStream == null) {
+				throw new IOException("Sheet " + sheetName + " not found in " + excelFilePath);
+			}
+			xml = xmlInputFactory.createXMLStreamReader(sheetStream);
+			ExcelRow headerRow = readRow(Collections.<String>emptyList());
+			List<String> names = new ArrayList<String>();
+			if (headerRow != null) {
+				for (int i = 0; i < headerRow.width(); i++) {
+					names.add(headerRow.get(i) == null ? "" : headerRow.get(i));
+				}
+			}
+			headers = Collections.unmodifiableList(names);
+			next = readRow(headers);
+		} catch (IOException e) {
+			closeQuietly();
+			throw e;
+		} catch (Exception e) {
+			closeQuietly();
+			throw new IOException("Unable to stream " + sheetName + " from " + excelFilePath, e);
+		}
+	}
+
+	/**
+	 * This method streams the data rows of a sheet. The stream must be closed.
+	 * 
+	 * @param excelFilePath - {@link String} .xlsx file location
+	 * @param sheetName     - {@link String} sheet name
+	 * @return {@link Stream} of {@link ExcelRow}
+	 * @throws IOException when the workbook cannot be read or has no such sheet
+	 */
+	public static Stream<ExcelRow> stream(String excelFilePath, String sheetName) throws IOException {
+		ExcelStreamReader reader = new ExcelStreamReader(excelFilePath, sheetName);
+		return StreamSupport
+				.stream(Spliterators.spliteratorUnknownSize(reader, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(reader::close);
+	}
+
+	/**
+	 * This method feeds a TestNG DataProvider lazily, one row per invocation:
+	 * {@code return ExcelStreamReader.dataProvider(path, sheet);} from a method
+	 * returning {@code Iterator<Object[]>}.
+	 * 
+	 * @param excelFilePath - {@link String} .xlsx file location
+	 * @param sheetName     - {@link String} sheet name
+	 * @return {@link Iterator} of single element arrays holding an
+	 *         {@link ExcelRow}
+	 * @throws IOException when the workbook cannot be read or has no such sheet
+	 */
+	public static Iterator<Object[]> dataProvider(String excelFilePath, String sheetName) throws IOException {
+		final ExcelStreamReader reader = new ExcelStreamReader(excelFilePath, sheetName);
+		return new Iterator<Object[]>() {
+			@Override
+			public boolean hasNext() {
+				return reader.hasNext();
+			}
+
+			@Override
+			public Object[] next() {
+				return new Object[] { reader.next() };
+			}
+		};
+	}
+
+	public List<String> getHeaders() {
+		return headers;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null) {
+			close();
+		}
+		return next != null;
+	}
+
+	@Override
+	public ExcelRow next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		ExcelRow row = next;
+		try {
+			next = readRow(headers);
+		} catch (XMLStreamException e) {
+			close();
+			throw new UncheckedIOException(new IOException("Unable to read the row after " + row.getRowNumber(), e));
+		}
+		return row;
+	}
+
+	@Override
+	public void close() {
+		if (!closed) {
+			closed = true;
+			closeQuietly();
+		}
+	}
+
+	private void closeQuietly() {
+		try {
+			if (xml != null) {
+				xml.close();
+			}
+			if (sheetStream != null) {
+				sheetStream.close();
+			}
+		} catch (XMLStreamException | IOException e) {
+			// Nothing left to read
+		}
+		if (workbook != null) {
+			workbook.revert();
+		}
+	}
+
+	private static InputStream openSheet(XSSFReader reader, String sheetName) throws Exception {
+		XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+		while (sheets.hasNext()) {
+			InputStream sheet = sheets.next();
+			if (sheets.getSheetName().equals(sheetName)) {
+				return sheet;
+			}
+			sheet.close();
+		}
+		return null;
+	}
+
+	// Reads up to the next row with at least one value, null at the end of the sheet
+	private ExcelRow readRow(List<String> headers) throws XMLStreamException {
+		while (xml.hasNext()) {
+			int event = xml.next();
+			if (event == XMLStreamConstants.START_ELEMENT && "row".equals(xml.getLocalName())) {
+				int rowNumber = Integer.parseInt(xml.getAttributeValue(null, "r"));
+				String[] values = new String[Math.max(headers.size(), 1)];
+				boolean empty = true;
+				int column = 0;
+				while (xml.hasNext()) {
+					event = xml.next();
+					if (event == XMLStreamConstants.END_ELEMENT && "row".equals(xml.getLocalName())) {
+						break;
+					}
+					if (event == XMLStreamConstants.START_ELEMENT && "c".equals(xml.getLocalName())) {
+						String reference = xml.getAttributeValue(null, "r");
+						column = reference == null ? column : columnIndex(reference);
+						String value = readCell();
+						if (value != null) {
+							if (column >= values.length) {
+								values = Arrays.copyOf(values, column + 1);
+							}
+							values[column] = value;
+							empty = false;
+						}
+						column++;
+					}
+				}
+				if (!empty) {
+					return new ExcelRow(rowNumber, headers, values);
+				}
+			}
+		}
+		return null;
+	}
+
+	// Positioned on <c>; returns the cell text and leaves the reader on </c>
+	private String readCell() throws XMLStreamException {
+		String type = xml.getAttributeValue(null, "t");
+		String style = xml.getAttributeValue(null, "s");
+		StringBuilder text = null;
+		while (xml.hasNext()) {
+			int event = xml.next();
+			if (event == XMLStreamConstants.END_ELEMENT && "c".equals(xml.getLocalName())) {
+				break;
+			}
+			if (event == XMLStreamConstants.START_ELEMENT
+					&& ("v".equals(xml.getLocalName()) || "t".equals(xml.getLocalName()))) {
+				String value = xml.getElementText();
+				text = text == null ? new StringBuilder(value) : text.append(value);
+			}
+		}
+		if (text == null) {
+			return null;
+		}
+		String raw = text.toString();
+		if ("s".equals(type)) {
+			return sharedStrings.getItemAt(Integer.parseInt(raw)).getString();
+		}
+		if ("b".equals(type)) {
+			return "1".equals(raw) ? "true" : "false";
+		}
+		if (type == null || "n".equals(type)) {
+			return formatNumber(raw, style);
+		}
+		return raw;
+	}
+
+	private String formatNumber(String raw, String style) {
+		if (style != null && styles != null) {
+			XSSFCellStyle cellStyle = styles.getStyleAt(Integer.parseInt(style));
+			if (cellStyle != null
+					&& DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString())) {
+				return DateUtil.getLocalDateTime(Double.parseDouble(raw)).toString();
+			}
+		}
+		// Whole numbers are stored as 60 or 60.0 depending on the writer
+		return raw.endsWith(".0") ? raw.substring(0, raw.length() - 2) : raw;
+	}
+
+	private static int columnIndex(String reference) {
+		int column = 0;
+		for (int i = 0; i < reference.length() && Character.isLetter(reference.charAt(i)); i++) {
+			column = column * 26 + (reference.charAt(i) - 'A' + 1);
+		}
+		return column - 1;
+	}
+
+	private static XMLInputFactory createXmlInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+
+}
@@ -10,6 +10,8 @@ import com.aventstack.extentreports.reporter.ExtentHtmlReporter;
 import com.aventstack.extentreports.reporter.configuration.ChartLocation;
 import com.aventstack.extentreports.reporter.configuration.Theme;
 
+import restConfig.ConfigManager;
+
 public class ExtentReportManager 
 {
 	private static ExtentReports extent;
@@ -17,8 +19,6 @@ public class ExtentReportManager
     private static String reportFileName = "ExtentReports-Version3-Test-Automaton-Report.html";
     private static String macPath = System.getProperty("user.dir")+ "/TestReport";
     private static String windowsPath = System.getProperty("user.dir")+ "\\TestReport";
-    private static String macReportFileLoc = macPath + "/" + reportFileName;
-    private static String winReportFileLoc = windowsPath + "\\" + reportFileName;
     public static ExtentTest extentTest;
  
     public static ExtentReports getInstance() {
@@ -29,8 +29,14 @@ public class ExtentReportManager
  
     //Create an extent report instance
     public static ExtentReports createInstance() {
+        extent = createInstance(getReportFileName());
+        return extent;
+    }
+ 
+    //Create an extent report instance writing to the given file name inside the report folder
+    public static ExtentReports createInstance(String reportFile) {
         platform = getCurrentPlatform();
-        String fileName = getReportFileLocation(platform);
+        String fileName = getReportFileLocation(platform, reportFile);
         ExtentHtmlReporter htmlReporter = new ExtentHtmlReporter(fileName);
         htmlReporter.config().setTestViewChartLocation(ChartLocation.BOTTOM);
         htmlReporter.config().setChartVisibilityOnOpen(true);
@@ -39,28 +45,41 @@ public class ExtentReportManager
         htmlReporter.config().setEncoding("utf-8");
         htmlReporter.config().setReportName(fileName);
  
-        extent = new ExtentReports();
-        extent.attachReporter(htmlReporter);
+        ExtentReports reports = new ExtentReports();
+        reports.attachReporter(htmlReporter);
  
-        return extent;
+        return reports;
+    }
+ 
+    //Get the default report file name, one per shard when the suite is sharded
+    public static String getReportFileName() {
+        if (ConfigManager.getIntProperty("shard.count", 1) > 1) {
+            return reportFileName.replace(".html", "-shard" + ConfigManager.getIntProperty("shard.index", 0) + ".html");
+        }
+        return reportFileName;
+    }
+ 
+    //Get the folder the reports are written to
+    public static String getReportPath() {
+        return getCurrentPlatform() == Platform.WINDOWS ? windowsPath : macPath;
     }
  
     //Select the extent report file location based on platform
-    private static String getReportFileLocation (Platform platform) {
+    private static String getReportFileLocation (Platform platform, String reportFile) {
         String reportFileLocation = null;
         switch (platform) {
             case MAC:
-                reportFileLocation = macReportFileLoc;
+                reportFileLocation = macPath + "/" + reportFile;
                 createReportPath(macPath);
                 System.out.println("ExtentReport Path for MAC: " + macPath + "\n");
                 break;
             case WINDOWS:
-                reportFileLocation = winReportFileLoc;
+                reportFileLocation = windowsPath + "\\" + reportFile;
                 createReportPath(windowsPath);
                 System.out.println("ExtentReport Path for WINDOWS: " + windowsPath + "\n");
                 break;
             default:
-            	 reportFileLocation = macReportFileLoc;
+            	 reportFileLocation = macPath + "/" + reportFile;
                  createReportPath(macPath);
                  System.out.println("ExtentReport Path for Linux: " + macPath + "\n");
                 break;
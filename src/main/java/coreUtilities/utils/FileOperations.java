@@ -1,22 +1,20 @@
 package coreUtilities.utils;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 
+import com.codoid.products.exception.FilloException;
 import com.codoid.products.fillo.Connection;
 import com.codoid.products.fillo.Fillo;
+import com.codoid.products.fillo.Recordset;
+
+import coreUtilities.profiling.ExcelReadEvent;
+import restConfig.ConfigManager;
 
 public class FileOperations {
 	public JSONParser jsonParser;
@@ -29,7 +27,10 @@ public class FileOperations {
 	 * This method is useful to read the excel sheet based on the Filename and sheet
 	 * name. It'll return the values for the respective sheet in {@link Map} where
 	 * the first column name as a key and the value as per the value entered in
-	 * second column.
+	 * second column. With test.data.compiled=true (default) the sheet comes from
+	 * the memory-mapped {@link TestDataStore}, otherwise the workbook is parsed
+	 * once and served from {@link WorkbookCache}; either way the returned map is
+	 * read-only, and empty for an empty sheet.
 	 * 
 	 * @param excelFilePath - {@link String} excel sheet location
 	 * @param sheetName     - {@link String} Sheet name to read the excel
@@ -37,45 +38,159 @@ public class FileOperations {
 	 * @throws Exception
 	 */
 	public Map<String, String> readExcelPOI(String excelFilePath, String sheetName) throws Exception {
-		// Create a Map to store key-value pairs from the Excel file
-		Map<String, String> dataMap = new HashMap<>();
-
-		// Create a FileInputStream object to read the Excel file
-		FileInputStream fileInputStream = new FileInputStream(new File(excelFilePath));
-
-		// Create a Workbook object using the WorkbookFactory
-		Workbook workbook = WorkbookFactory.create(fileInputStream);
+		ExcelReadEvent event = new ExcelReadEvent();
+		event.begin();
+		Map<String, String> dataMap;
+		if (isCompiled()) {
+			TestDataStore store = TestDataStore.open(excelFilePath);
+			if (!store.hasSheet(sheetName)) {
+				throw new IllegalArgumentException("Sheet " + sheetName + " not found in " + excelFilePath);
+			}
+			dataMap = store.getSection(sheetName);
+		} else {
+			dataMap = WorkbookCache.getSheet(excelFilePath, sheetName);
+		}
+		event.finish(excelFilePath, sheetName, dataMap.size());
+		return dataMap;
+	}
 
-		// Get the sheet from the workbook
-		Sheet sheet = workbook.getSheet(sheetName);
+	/**
+	 * This method reads a sheet laid out as a table, a header row followed by one
+	 * scenario per row, for a TestNG DataProvider. Each element of the result is
+	 * a single element array holding an {@link ExcelRow}, so with
+	 * {@code @DataProvider(parallel = true)} every row runs as its own test
+	 * invocation on the suite's data-provider-thread-count pool and is reported
+	 * with its row number.
+	 * 
+	 * @param excelFilePath - {@link String} .xlsx file location
+	 * @param sheetName     - {@link String} sheet name
+	 * @return {@link Object}[][] one {@link ExcelRow} per data row
+	 * @throws Exception when the workbook cannot be read or has no such sheet
+	 */
+	public Object[][] readExcelRows(String excelFilePath, String sheetName) throws Exception {
+		ExcelReadEvent event = new ExcelReadEvent();
+		event.begin();
+		List<Object[]> rows = new ArrayList<Object[]>();
+		try (ExcelStreamReader reader = new ExcelStreamReader(excelFilePath, sheetName)) {
+			while (reader.hasNext()) {
+				rows.add(new Object[] { reader.next() });
+			}
+		}
+		event.finish(excelFilePath, sheetName, rows.size());
+		return rows.toArray(new Object[rows.size()][]);
+	}
 
-		// Iterate through each row in the sheet
-		for (Row row : sheet) {
-			// Assuming the first column contains the key and the second column contains the
-			// value
-			Cell keyCell = row.getCell(0);
-			Cell valueCell = row.getCell(1);
+	/**
+	 * This method runs an SQL-style query against a table sheet, e.g.
+	 * {@code queryExcel(path, "SELECT * FROM EditDepartmentRows WHERE DepartmentCode = 'ABCDE'")}.
+	 * SELECT statements in the {@link SheetQuery} grammar are answered from
+	 * cached plans and per-column indexes; anything else (LIKE, OR, ...) goes to
+	 * Fillo, which scans the sheet on every call and cannot report row numbers,
+	 * so those rows have row number 0.
+	 * 
+	 * @param excelFilePath - {@link String} .xlsx file location
+	 * @param query         - {@link String} SELECT statement
+	 * @return {@link List} of {@link ExcelRow} in sheet order, empty when nothing
+	 *         matches
+	 * @throws Exception when the workbook cannot be read or the query fails
+	 */
+	public List<ExcelRow> queryExcel(String excelFilePath, String query) throws Exception {
+		ExcelReadEvent event = new ExcelReadEvent();
+		event.begin();
+		SheetQuery.Plan plan = SheetQuery.plan(query);
+		List<ExcelRow> rows = plan != null ? SheetQuery.select(excelFilePath, query) : queryFillo(excelFilePath, query);
+		event.finish(excelFilePath, plan != null ? plan.getSheet() : query, rows.size());
+		return rows;
+	}
 
-			if (keyCell != null && valueCell != null) {
-				// Convert the cell type to STRING if it is not already STRING
-				if (keyCell.getCellType() != CellType.STRING) {
-					keyCell.setCellType(CellType.STRING);
-				}
-				if (valueCell.getCellType() != CellType.STRING) {
-					valueCell.setCellType(CellType.STRING);
+	private List<ExcelRow> queryFillo(String excelFilePath, String query) throws FilloException {
+		if (fillo == null) {
+			fillo = new Fillo();
+		}
+		Connection filloConnection = fillo.getConnection(excelFilePath);
+		Recordset recordset = null;
+		try {
+			recordset = filloConnection.executeQuery(query);
+			List<String> headers = new ArrayList<String>(recordset.getFieldNames());
+			List<ExcelRow> rows = new ArrayList<ExcelRow>();
+			while (recordset.next()) {
+				String[] values = new String[headers.size()];
+				for (int i = 0; i < values.length; i++) {
+					String value = recordset.getField(headers.get(i));
+					values[i] = value == null || value.isEmpty() ? null : value;
 				}
-
-				// Store the key-value pair in the Map
-				dataMap.put(keyCell.getStringCellValue(), valueCell.getStringCellValue());
+				rows.add(new ExcelRow(0, headers, values));
+			}
+			return rows;
+		} catch (FilloException e) {
+			// Fillo reports an empty result as an error
+			if (e.getMessage() != null && e.getMessage().contains("No records found")) {
+				return new ArrayList<ExcelRow>();
+			}
+			throw e;
+		} finally {
+			if (recordset != null) {
+				recordset.close();
 			}
+			filloConnection.close();
 		}
+	}
 
-		// Close the workbook and file stream
-		workbook.close();
-		fileInputStream.close();
+	/**
+	 * This method reads one value of a JSON test data file, e.g.
+	 * readJsonValue("src/test/java/testdata/Login.json", "credentials", "username").
+	 * Nested objects are addressed with a dotted section such as "a.b".
+	 * 
+	 * @param jsonFilePath - {@link String} json file location
+	 * @param section      - {@link String} path of the enclosing object
+	 * @param key          - {@link String} key inside that object
+	 * @return {@link String}, null when absent
+	 * @throws Exception
+	 */
+	public String readJsonValue(String jsonFilePath, String section, String key) throws Exception {
+		return JsonData.open(jsonFilePath).getString(JsonPath.compile(section).child(key));
+	}
 
-		// Return the data map
-		return dataMap;
+	/**
+	 * This method reads all values of one object of a JSON test data file.
+	 * 
+	 * @param jsonFilePath - {@link String} json file location
+	 * @param section      - {@link String} path of the object
+	 * @return read-only {@link Map}
+	 * @throws Exception
+	 */
+	public Map<String, String> readJsonSection(String jsonFilePath, String section) throws Exception {
+		return JsonData.open(jsonFilePath).getSection(JsonPath.compile(section));
+	}
+
+	/**
+	 * This method reads the value at a dotted path or JSON pointer of a JSON test
+	 * data file, e.g. readJson("src/test/java/testdata/expected_data.json",
+	 * "healthApp.pageUrl"). Objects and arrays come back as read-only
+	 * {@link Map} and {@link List}.
+	 * 
+	 * @param jsonFilePath - {@link String} json file location
+	 * @param path         - {@link String} e.g. "healthApp.pageUrl" or
+	 *                     "/healthApp/pageUrl"
+	 * @return {@link Object}, null when absent
+	 * @throws Exception
+	 */
+	public Object readJson(String jsonFilePath, String path) throws Exception {
+		return JsonData.open(jsonFilePath).get(JsonPath.compile(path));
+	}
+
+	// Method to warm the test data on a background thread when the suite starts
+	public static void prefetch() {
+		JsonData.prefetch();
+		if (isCompiled()) {
+			TestDataStore.prefetch();
+		} else {
+			WorkbookCache.prefetch();
+		}
+	}
+
+	private static boolean isCompiled() {
+		return ConfigManager.getBooleanProperty("test.data.compiled", true);
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,309 @@
+package coreUtilities.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import restConfig.ConfigManager;
+
+/**
+ * Immutable view of a JSON test data file, read once per file version and
+ * shared by all test threads.
+ * <p>
+ * Opening a file only indexes the text span of each top-level member. A member
+ * is parsed the first time a path reaches into it, at most once even under
+ * concurrent reads, so rarely used sections cost nothing. Parsed objects and
+ * arrays are unmodifiable maps and lists; scalars are {@link String},
+ * {@link Long}, {@link Double}, {@link Boolean} or null. Lookups are memoized
+ * per {@link JsonPath}, so a repeated read is one hash lookup.
+ */
+public class JsonData {
+
+	private static final Object NULL = new Object();
+	private static final ConcurrentMap<String, JsonData> documents = new ConcurrentHashMap<String, JsonData>();
+	private static final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<String, Object>();
+
+	private final String source;
+	private final String text;
+	private final long lastModified;
+	private final long length;
+	// Top-level members in file order, null when the document is not an object
+	private final Map<String, Section> sections;
+	private final Section root;
+	private final ConcurrentMap<JsonPath, Object> resolved = new ConcurrentHashMap<JsonPath, Object>();
+	private final ConcurrentMap<JsonPath, Map<String, String>> leaves = new ConcurrentHashMap<JsonPath, Map<String, String>>();
+
+	private JsonData(File file, long lastModified, long length) throws IOException {
+		this.source = file.getPath();
+		this.text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		this.lastModified = lastModified;
+		this.length = length;
+		this.root = new Section(0, text.length());
+		this.sections = indexMembers();
+	}
+
+	/**
+	 * This method returns the document of a JSON file, reading it when it is not
+	 * cached yet or changed on disk.
+	 *
+	 * @param jsonFilePath - {@link String} json file location
+	 * @return {@link JsonData}
+	 * @throws IOException when the file cannot be read
+	 */
+	public static JsonData open(String jsonFilePath) throws IOException {
+		File file = new File(jsonFilePath).getCanonicalFile();
+		long lastModified = file.lastModified();
+		long length = file.length();
+		JsonData document = documents.get(file.getPath());
+		if (document != null && document.lastModified == lastModified && document.length == length) {
+			return document;
+		}
+		synchronized (locks.computeIfAbsent(file.getPath(), k -> new Object())) {
+			document = documents.get(file.getPath());
+			if (document == null || document.lastModified != lastModified || document.length != length) {
+				document = new JsonData(file, lastModified, length);
+				documents.put(file.getPath(), document);
+			}
+		}
+		return document;
+	}
+
+	/**
+	 * This method opens the files listed in json.data.files on a background
+	 * thread so the first test does not pay for it.
+	 */
+	public static void prefetch() {
+		final String paths = ConfigManager.getProperty("json.data.files", "");
+		if (paths.trim().isEmpty()) {
+			return;
+		}
+		Thread prefetcher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (String path : paths.split(",")) {
+					try {
+						open(path.trim());
+					} catch (IOException | RuntimeException e) {
+						System.out.println("JSON data prefetch failed for " + path.trim() + ": " + e);
+					}
+				}
+			}
+		}, "json-data-prefetch");
+		prefetcher.setDaemon(true);
+		prefetcher.start();
+	}
+
+	/**
+	 * This method returns the value at a path.
+	 *
+	 * @param path - {@link JsonPath} compiled path
+	 * @return {@link Object}, null when the path does not exist
+	 */
+	public Object get(JsonPath path) {
+		Object value = resolved.get(path);
+		if (value == null) {
+			value = resolve(path);
+			resolved.putIfAbsent(path, value == null ? NULL : value);
+		}
+		return value == NULL ? null : value;
+	}
+
+	/**
+	 * This method returns the value at a dotted path or JSON pointer, e.g.
+	 * getString("healthApp.pageUrl").
+	 *
+	 * @param path - {@link String} path, see {@link JsonPath#compile(String)}
+	 * @return {@link String}, null when the path does not exist
+	 */
+	public String getString(String path) {
+		return getString(JsonPath.compile(path));
+	}
+
+	public String getString(JsonPath path) {
+		Object value = get(path);
+		return value == null ? null : String.valueOf(value);
+	}
+
+	/**
+	 * This method returns the scalar members of the object at a path as text,
+	 * leaving out nested objects and arrays.
+	 *
+	 * @param path - {@link JsonPath} path of the object
+	 * @return read-only {@link Map}, empty when the path is not an object
+	 */
+	public Map<String, String> getSection(JsonPath path) {
+		Map<String, String> section = leaves.get(path);
+		if (section == null) {
+			Map<String, String> values = new LinkedHashMap<String, String>();
+			Object node = get(path);
+			if (node instanceof Map) {
+				for (Map.Entry<?, ?> entry : ((Map<?, ?>) node).entrySet()) {
+					if (!(entry.getValue() instanceof Map) && !(entry.getValue() instanceof List)) {
+						values.put(entry.getKey().toString(), String.valueOf(entry.getValue()));
+					}
+				}
+			}
+			section = Collections.unmodifiableMap(values);
+			leaves.putIfAbsent(path, section);
+		}
+		return section;
+	}
+
+	private Object resolve(JsonPath path) {
+		if (sections == null || path.length() == 0) {
+			return path.walk(root.value(), 0);
+		}
+		Section section = sections.get(path.head());
+		return section == null ? null : path.walk(section.value(), 1);
+	}
+
+	// Raw text of one member, parsed on first use
+	private final class Section {
+
+		private final int start;
+		private final int end;
+		private volatile Object value;
+		private volatile boolean parsed;
+
+		Section(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		Object value() {
+			if (!parsed) {
+				synchronized (this) {
+					if (!parsed) {
+						value = parse(start, end);
+						parsed = true;
+					}
+				}
+			}
+			return value;
+		}
+	}
+
+	private Object parse(int start, int end) {
+		try {
+			return freeze(new JSONParser().parse(text.substring(start, end)));
+		} catch (ParseException e) {
+			throw new IllegalStateException("Invalid JSON in " + source + " at offset " + (start + e.getPosition()), e);
+		}
+	}
+
+	// json-simple maps and lists copied into unmodifiable ones
+	private static Object freeze(Object node) {
+		if (node instanceof Map) {
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) node).entrySet()) {
+				map.put(entry.getKey().toString(), freeze(entry.getValue()));
+			}
+			return Collections.unmodifiableMap(map);
+		}
+		if (node instanceof List) {
+			List<Object> list = new ArrayList<Object>(((List<?>) node).size());
+			for (Object child : (List<?>) node) {
+				list.add(freeze(child));
+			}
+			return Collections.unmodifiableList(list);
+		}
+		return node;
+	}
+
+	// Spans of the top-level members, without parsing their values
+	private Map<String, Section> indexMembers() {
+		int i = skipWhitespace(0);
+		if (i >= text.length() || text.charAt(i) != '{') {
+			return null;
+		}
+		Map<String, Section> members = new LinkedHashMap<String, Section>();
+		i = skipWhitespace(i + 1);
+		while (i < text.length() && text.charAt(i) != '}') {
+			if (text.charAt(i) != '"') {
+				throw invalid(i);
+			}
+			int keyEnd = skipString(i);
+			String key = (String) parse(i, keyEnd);
+			i = skipWhitespace(keyEnd);
+			if (i >= text.length() || text.charAt(i) != ':') {
+				throw invalid(i);
+			}
+			int valueStart = skipWhitespace(i + 1);
+			int valueEnd = skipValue(valueStart);
+			members.put(key, new Section(valueStart, valueEnd));
+			i = skipWhitespace(valueEnd);
+			if (i < text.length() && text.charAt(i) == ',') {
+				i = skipWhitespace(i + 1);
+			}
+		}
+		return Collections.unmodifiableMap(members);
+	}
+
+	private int skipWhitespace(int i) {
+		while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	// Index just past the string starting at the quote at i
+	private int skipString(int i) {
+		for (i++; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '\\') {
+				i++;
+			} else if (c == '"') {
+				return i + 1;
+			}
+		}
+		throw invalid(i);
+	}
+
+	// Index just past the value starting at i
+	private int skipValue(int i) {
+		if (i >= text.length()) {
+			throw invalid(i);
+		}
+		char first = text.charAt(i);
+		if (first == '"') {
+			return skipString(i);
+		}
+		if (first == '{' || first == '[') {
+			int depth = 0;
+			while (i < text.length()) {
+				char c = text.charAt(i);
+				if (c == '"') {
+					i = skipString(i);
+					continue;
+				}
+				if (c == '{' || c == '[') {
+					depth++;
+				} else if ((c == '}' || c == ']') && --depth == 0) {
+					return i + 1;
+				}
+				i++;
+			}
+			throw invalid(i);
+		}
+		while (i < text.length() && ",}] \t\r\n".indexOf(text.charAt(i)) < 0) {
+			i++;
+		}
+		return i;
+	}
+
+	private IllegalStateException invalid(int offset) {
+		return new IllegalStateException("Invalid JSON in " + source + " at offset " + offset);
+	}
+
+}
@@ -0,0 +1,161 @@
+package coreUtilities.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A path into a {@link JsonData} document, compiled once into its segments.
+ * Two spellings are accepted: dotted paths such as "healthApp.pageUrl" or
+ * "items[0].name", and JSON pointers (RFC 6901) such as "/healthApp/pageUrl",
+ * which also reach keys containing dots or brackets. The empty string is the
+ * whole document. Paths are immutable and compare by their segments.
+ */
+public final class JsonPath {
+
+	private static final int MAX_CACHED = 4096;
+	private static final ConcurrentMap<String, JsonPath> compiled = new ConcurrentHashMap<String, JsonPath>();
+
+	private final String[] segments;
+	// Segment as an array index, -1 when it is not a number
+	private final int[] indexes;
+	private final int hash;
+
+	private JsonPath(String[] segments) {
+		this.segments = segments;
+		this.indexes = new int[segments.length];
+		for (int i = 0; i < segments.length; i++) {
+			indexes[i] = toIndex(segments[i]);
+		}
+		this.hash = Arrays.hashCode(segments);
+	}
+
+	/**
+	 * This method compiles a dotted path or JSON pointer, or returns the cached
+	 * instance of an earlier call.
+	 *
+	 * @param path - {@link String} e.g. "healthApp.pageUrl" or "/healthApp/pageUrl"
+	 * @return {@link JsonPath}
+	 */
+	public static JsonPath compile(String path) {
+		JsonPath jsonPath = compiled.get(path);
+		if (jsonPath == null) {
+			jsonPath = new JsonPath(path.startsWith("/") ? pointer(path) : dotted(path));
+			// Generated paths can be unbounded; start over rather than grow
+			if (compiled.size() >= MAX_CACHED) {
+				compiled.clear();
+			}
+			compiled.put(path, jsonPath);
+		}
+		return jsonPath;
+	}
+
+	/**
+	 * This method returns this path extended by one key, taken literally.
+	 *
+	 * @param key - {@link String} member name or array index
+	 * @return {@link JsonPath}
+	 */
+	public JsonPath child(String key) {
+		String[] extended = Arrays.copyOf(segments, segments.length + 1);
+		extended[segments.length] = key;
+		return new JsonPath(extended);
+	}
+
+	// First segment, the top-level member that has to be materialized
+	String head() {
+		return segments.length == 0 ? null : segments[0];
+	}
+
+	int length() {
+		return segments.length;
+	}
+
+	/**
+	 * This method walks a materialized value from the given segment on.
+	 *
+	 * @param node - {@link Object} value of the segments before from
+	 * @param from - index of the first segment to apply
+	 * @return the value, null when the path does not exist
+	 */
+	Object walk(Object node, int from) {
+		for (int i = from; i < segments.length && node != null; i++) {
+			if (node instanceof Map) {
+				node = ((Map<?, ?>) node).get(segments[i]);
+			} else if (node instanceof List) {
+				List<?> list = (List<?>) node;
+				node = indexes[i] >= 0 && indexes[i] < list.size() ? list.get(indexes[i]) : null;
+			} else {
+				return null;
+			}
+		}
+		return node;
+	}
+
+	private static String[] pointer(String path) {
+		String[] tokens = path.substring(1).split("/", -1);
+		for (int i = 0; i < tokens.length; i++) {
+			tokens[i] = tokens[i].replace("~1", "/").replace("~0", "~");
+		}
+		return tokens;
+	}
+
+	private static String[] dotted(String path) {
+		List<String> tokens = new ArrayList<String>();
+		if (path.isEmpty()) {
+			return new String[0];
+		}
+		for (String part : path.split("\\.", -1)) {
+			int bracket = part.indexOf('[');
+			tokens.add(bracket < 0 ? part : part.substring(0, bracket));
+			while (bracket >= 0) {
+				int close = part.indexOf(']', bracket);
+				if (close < 0) {
+					throw new IllegalArgumentException("Unclosed [ in JSON path " + path);
+				}
+				tokens.add(part.substring(bracket + 1, close));
+				bracket = part.indexOf('[', close);
+			}
+		}
+		// "[0]" at the start of a path addresses a top-level array
+		if (!tokens.isEmpty() && tokens.get(0).isEmpty() && path.startsWith("[")) {
+			tokens.remove(0);
+		}
+		return tokens.toArray(new String[tokens.size()]);
+	}
+
+	private static int toIndex(String segment) {
+		if (segment.isEmpty() || segment.length() > 9) {
+			return -1;
+		}
+		for (int i = 0; i < segment.length(); i++) {
+			if (!Character.isDigit(segment.charAt(i))) {
+				return -1;
+			}
+		}
+		return Integer.parseInt(segment);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof JsonPath && Arrays.equals(segments, ((JsonPath) other).segments);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder pointer = new StringBuilder();
+		for (String segment : segments) {
+			pointer.append('/').append(segment.replace("~", "~0").replace("/", "~1"));
+		}
+		return pointer.toString();
+	}
+
+}
@@ -4,37 +4,77 @@ package coreUtilities.utils;
 
 
 
+
+
 import java.io.File;
 
 import java.lang.reflect.Method;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import java.util.concurrent.atomic.AtomicLong;
+
  
 
 import org.apache.logging.log4j.LogManager;
 
 import org.apache.logging.log4j.Logger;
 
+import org.apache.logging.log4j.ThreadContext;
+
 import org.apache.logging.log4j.core.LoggerContext;
 
+import org.apache.logging.log4j.util.Supplier;
+
 import org.testng.ITestContext;
 
  
 
+/**
+
+ * Logging entry point. log4j2.xml on the classpath routes every logger through
+
+ * an asynchronous appender, so callers only enqueue the event. The Supplier
+
+ * overloads build their message only when the level is enabled, and each line
+
+ * carries the current test and request ids from the {@link ThreadContext}.
+
+ */
+
 public class Log {
 
     
 
     public static Logger logger = LogManager.getLogger(Log.class.getName());    
 
+
+
+    private static final AtomicBoolean initialized = new AtomicBoolean();
+
+    private static final AtomicLong requestIds = new AtomicLong();
+
  
 
+    //Apply the optional project log4j2.xml once; the classpath configuration is used otherwise
+
     public static void logInitialize() {
 
-        LoggerContext context = (LoggerContext) LogManager.getContext(false);
+        if (!initialized.compareAndSet(false, true)) {
+
+            return;
+
+        }
 
         File file = new File("src//test//Resources//log4j2.xml");    
 
-        context.setConfigLocation(file.toURI());
+        if (file.isFile()) {
+
+            LoggerContext context = (LoggerContext) LogManager.getContext(false);
+
+            context.setConfigLocation(file.toURI());
+
+        }
 
     }
 
@@ -90,6 +130,46 @@ public class Log {
 
  
 
+    //Tag every following line of the current thread with the test id
+
+    public static void setTestId(String testId) {
+
+        ThreadContext.put("testId", testId);
+
+    }
+
+ 
+
+    public static void clearTestId() {
+
+        ThreadContext.remove("testId");
+
+    }
+
+ 
+
+    //Tag every following line of the current thread with a new request id and return it
+
+    public static String startRequest() {
+
+        String requestId = Long.toString(requestIds.incrementAndGet(), 36);
+
+        ThreadContext.put("requestId", requestId);
+
+        return requestId;
+
+    }
+
+ 
+
+    public static void endRequest() {
+
+        ThreadContext.remove("requestId");
+
+    }
+
+ 
+
     public static void info(String message) {
 
         logger.info("> INFO: " + message);
@@ -98,6 +178,14 @@ public class Log {
 
  
 
+    public static void info(Supplier<String> message) {
+
+        logger.info(() -> "> INFO: " + message.get());
+
+    }
+
+ 
+
     public static void warn(String message) {
 
         logger.warn("> WARN: " + message);
@@ -106,6 +194,14 @@ public class Log {
 
  
 
+    public static void warn(Supplier<String> message) {
+
+        logger.warn(() -> "> WARN: " + message.get());
+
+    }
+
+ 
+
     public static void error(String message) {
 
         logger.error("> ERROR: " + message);
@@ -114,6 +210,14 @@ public class Log {
 
  
 
+    public static void error(Supplier<String> message) {
+
+        logger.error(() -> "> ERROR: " + message.get());
+
+    }
+
+ 
+
     public static void fatal(String message) {
 
         logger.fatal("> FATAL: " + message);
@@ -130,6 +234,14 @@ public class Log {
 
  
 
+    public static void debug(Supplier<String> message) {
+
+        logger.debug(() -> "> DEBUG: " + message.get());
+
+    }
+
+ 
+
     public static void expected(String message) {
 
         logger.info("> EXPECTED RESULT : " + message);
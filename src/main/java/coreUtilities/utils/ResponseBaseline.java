@@ -0,0 +1,200 @@
+package coreUtilities.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import restConfig.ConfigManager;
+
+/**
+ * Detects data or contract drift of API responses against a recorded baseline.
+ * Every node of the response JSON gets a Merkle-style 64 bit hash (object
+ * fields are hashed independently of their order, array elements by position).
+ * The baseline keeps the root hash in {@code <name>.root} and the hash tree in
+ * {@code <name>.tree.json}; the tree is only loaded when the root hashes differ
+ * and the comparison only descends into subtrees whose hashes differ.
+ */
+public class ResponseBaseline {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * This method compares a response with the named baseline. When no baseline
+	 * exists yet (or baseline.update is set) the response is recorded as the new
+	 * baseline and an empty report is returned.
+	 * 
+	 * @param name - {@link String} baseline name, e.g. the endpoint
+	 * @param json - {@link String} response body
+	 * @return {@link List} of path level differences: "~ path" changed, "+ path"
+	 *         added, "- path" removed
+	 * @throws IOException
+	 */
+	public static List<String> compare(String name, String json) throws IOException {
+		JsonNode current = mapper.readTree(json);
+		Map<JsonNode, Long> hashes = new IdentityHashMap<JsonNode, Long>();
+		long rootHash = hash(current, hashes);
+
+		File rootFile = new File(baselineDir(), name + ".root");
+		File treeFile = new File(baselineDir(), name + ".tree.json");
+		List<String> differences = new ArrayList<String>();
+		if (!rootFile.exists() || ConfigManager.getBooleanProperty("baseline.update", false)) {
+			record(rootFile, treeFile, current, hashes);
+			return differences;
+		}
+		if (Long.toHexString(rootHash).equals(readRoot(rootFile))) {
+			return differences;
+		}
+		diff("$", mapper.readTree(treeFile), current, hashes, differences);
+		return differences;
+	}
+
+	/**
+	 * This method compares a response with its baseline and prints the report.
+	 * 
+	 * @param name - {@link String} baseline name
+	 * @param json - {@link String} response body
+	 * @return {@link Boolean} true when the response matches the baseline
+	 * @throws IOException
+	 */
+	public static boolean report(String name, String json) throws IOException {
+		List<String> differences = compare(name, json);
+		if (differences.isEmpty()) {
+			System.out.println("Baseline " + name + ": no drift");
+		} else {
+			System.out.println("Baseline " + name + ": " + differences.size() + " differences");
+			for (String difference : differences) {
+				System.out.println("  " + difference);
+			}
+		}
+		return differences.isEmpty();
+	}
+
+	private static void diff(String path, JsonNode baseline, JsonNode current, Map<JsonNode, Long> hashes,
+			List<String> differences) {
+		if (Long.toHexString(hashes.get(current)).equals(baseline.path("h").asText())) {
+			return;
+		}
+		if (current.isObject() && baseline.has("c")) {
+			JsonNode baselineChildren = baseline.get("c");
+			Iterator<Map.Entry<String, JsonNode>> fields = current.fields();
+			while (fields.hasNext()) {
+				Map.Entry<String, JsonNode> field = fields.next();
+				String childPath = path + "." + field.getKey();
+				if (baselineChildren.has(field.getKey())) {
+					diff(childPath, baselineChildren.get(field.getKey()), field.getValue(), hashes, differences);
+				} else {
+					differences.add("+ " + childPath);
+				}
+			}
+			Iterator<String> baselineFields = baselineChildren.fieldNames();
+			while (baselineFields.hasNext()) {
+				String fieldName = baselineFields.next();
+				if (!current.has(fieldName)) {
+					differences.add("- " + path + "." + fieldName);
+				}
+			}
+		} else if (current.isArray() && baseline.has("a")) {
+			JsonNode baselineElements = baseline.get("a");
+			int common = Math.min(current.size(), baselineElements.size());
+			for (int i = 0; i < common; i++) {
+				diff(path + "[" + i + "]", baselineElements.get(i), current.get(i), hashes, differences);
+			}
+			for (int i = common; i < current.size(); i++) {
+				differences.add("+ " + path + "[" + i + "]");
+			}
+			for (int i = common; i < baselineElements.size(); i++) {
+				differences.add("- " + path + "[" + i + "]");
+			}
+		} else {
+			differences.add("~ " + path);
+		}
+	}
+
+	private static long hash(JsonNode node, Map<JsonNode, Long> hashes) {
+		long hash;
+		if (node.isObject()) {
+			// Field order must not matter, so child hashes are sorted by name first
+			Map<String, JsonNode> fields = new TreeMap<String, JsonNode>();
+			Iterator<Map.Entry<String, JsonNode>> iterator = node.fields();
+			while (iterator.hasNext()) {
+				Map.Entry<String, JsonNode> field = iterator.next();
+				fields.put(field.getKey(), field.getValue());
+			}
+			hash = mix(FNV_OFFSET, 'o');
+			for (Map.Entry<String, JsonNode> field : fields.entrySet()) {
+				hash = mix(mix(hash, fnv(field.getKey())), hash(field.getValue(), hashes));
+			}
+		} else if (node.isArray()) {
+			hash = mix(FNV_OFFSET, 'a');
+			for (JsonNode element : node) {
+				hash = mix(hash, hash(element, hashes));
+			}
+		} else {
+			hash = mix(mix(FNV_OFFSET, node.getNodeType().ordinal()), fnv(node.asText()));
+		}
+		hashes.put(node, hash);
+		return hash;
+	}
+
+	private static long fnv(String value) {
+		long hash = FNV_OFFSET;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+		}
+		return hash;
+	}
+
+	private static long mix(long hash, long value) {
+		hash ^= value + 0x9e3779b97f4a7c15L + (hash << 6) + (hash >>> 2);
+		return hash * FNV_PRIME;
+	}
+
+	private static void record(File rootFile, File treeFile, JsonNode current, Map<JsonNode, Long> hashes)
+			throws IOException {
+		rootFile.getParentFile().mkdirs();
+		mapper.writeValue(treeFile, toTree(current, hashes));
+		Files.write(rootFile.toPath(), Long.toHexString(hashes.get(current)).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static ObjectNode toTree(JsonNode node, Map<JsonNode, Long> hashes) {
+		ObjectNode tree = mapper.createObjectNode();
+		tree.put("h", Long.toHexString(hashes.get(node)));
+		if (node.isObject()) {
+			ObjectNode children = tree.putObject("c");
+			Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+			while (fields.hasNext()) {
+				Map.Entry<String, JsonNode> field = fields.next();
+				children.set(field.getKey(), toTree(field.getValue(), hashes));
+			}
+		} else if (node.isArray()) {
+			ArrayNode elements = tree.putArray("a");
+			for (JsonNode element : node) {
+				elements.add(toTree(element, hashes));
+			}
+		}
+		return tree;
+	}
+
+	private static String readRoot(File rootFile) throws IOException {
+		return new String(Files.readAllBytes(rootFile.toPath()), StandardCharsets.UTF_8).trim();
+	}
+
+	private static File baselineDir() {
+		return new File(ConfigManager.getProperty("baseline.dir", "src/test/java/testdata/baselines"));
+	}
+
+}
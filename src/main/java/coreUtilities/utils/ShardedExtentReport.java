@@ -0,0 +1,174 @@
+package coreUtilities.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+
+import restConfig.ConfigManager;
+
+/**
+ * Extent report that is written incrementally and split into shards so memory
+ * stays flat for very large suites. The current shard is flushed every
+ * report.flush.everyTests finished tests or report.flush.intervalSeconds,
+ * whichever comes first. Once report.shard.size tests were created in a shard
+ * a new report file is started; the old shard is flushed one last time when its
+ * last running test finishes and is then released, so finished test nodes
+ * leave the heap with it. The Extent HTML reporter rewrites the whole file
+ * from the tests it holds on every flush, so nodes cannot leave a shard that is
+ * still being written; the shard size bounds both memory and flush cost. An
+ * index page links all shards.
+ * 
+ * Not thread-safe: meant to be driven from the single test event consumer.
+ */
+public class ShardedExtentReport {
+
+	private static final String INDEX_FILE_NAME = "ExtentReports-Index.html";
+
+	private final int shardSize = ConfigManager.getIntProperty("report.shard.size", 500);
+	private final int flushEveryTests = ConfigManager.getIntProperty("report.flush.everyTests", 25);
+	private final long flushIntervalMillis = ConfigManager.getLongProperty("report.flush.intervalSeconds", 30) * 1000;
+
+	private final Map<ExtentTest, Shard> owners = new IdentityHashMap<ExtentTest, Shard>();
+	private final List<String> shardFiles = new ArrayList<String>();
+	private Shard current;
+	private long lastFlushMillis = System.currentTimeMillis();
+
+	public ShardedExtentReport() {
+		current = newShard();
+	}
+
+	/**
+	 * This method creates a test node in the current shard, starting a new shard
+	 * first when the current one is full.
+	 * 
+	 * @param name        - {@link String} test name
+	 * @param description - {@link String} test description
+	 * @return {@link ExtentTest}
+	 */
+	public ExtentTest createTest(String name, String description) {
+		if (shardSize > 0 && current.created >= shardSize) {
+			Shard retired = current;
+			current = newShard();
+			retired.retired = true;
+			releaseIfDone(retired);
+		}
+		ExtentTest test = current.reports.createTest(name, description);
+		current.created++;
+		current.open++;
+		owners.put(test, current);
+		return test;
+	}
+
+	/**
+	 * This method marks a test node as finished after its status was logged and
+	 * flushes the report when the configured count or interval is reached.
+	 * 
+	 * @param test - {@link ExtentTest} returned by {@link #createTest}
+	 */
+	public void finished(ExtentTest test) {
+		Shard shard = owners.remove(test);
+		if (shard == null) {
+			return;
+		}
+		shard.open--;
+		shard.unflushed++;
+		if (shard.retired) {
+			releaseIfDone(shard);
+			return;
+		}
+		boolean countReached = flushEveryTests > 0 && shard.unflushed >= flushEveryTests;
+		boolean intervalReached = flushIntervalMillis > 0
+				&& System.currentTimeMillis() - lastFlushMillis >= flushIntervalMillis;
+		if (countReached || intervalReached) {
+			flush(shard);
+		}
+	}
+
+	/**
+	 * This method drops a test node that should not be reported, e.g. an attempt
+	 * that TestNG retries.
+	 * 
+	 * @param test - {@link ExtentTest} returned by {@link #createTest}
+	 */
+	public void removed(ExtentTest test) {
+		Shard shard = owners.remove(test);
+		if (shard == null) {
+			return;
+		}
+		shard.reports.removeTest(test);
+		shard.open--;
+		if (shard.retired) {
+			releaseIfDone(shard);
+		}
+	}
+
+	// Method to flush every shard still in memory and write the shard index
+	public void flush() {
+		for (Shard shard : new ArrayList<Shard>(owners.values())) {
+			flush(shard);
+		}
+		flush(current);
+		writeIndex();
+	}
+
+	private Shard newShard() {
+		String fileName = ExtentReportManager.getReportFileName();
+		if (!shardFiles.isEmpty()) {
+			fileName = fileName.replace(".html", "-" + (shardFiles.size() + 1) + ".html");
+		}
+		shardFiles.add(fileName);
+		writeIndex();
+		return new Shard(ExtentReportManager.createInstance(fileName));
+	}
+
+	private void releaseIfDone(Shard shard) {
+		if (shard.open == 0) {
+			flush(shard);
+		}
+	}
+
+	private void flush(Shard shard) {
+		shard.reports.flush();
+		shard.unflushed = 0;
+		lastFlushMillis = System.currentTimeMillis();
+	}
+
+	private void writeIndex() {
+		if (shardFiles.size() < 2) {
+			return;
+		}
+		StringBuilder html = new StringBuilder("<html><head><meta charset=\"utf-8\"><title>Test Report Index</title>"
+				+ "</head><body><h2>Test Report Shards</h2><ol>");
+		for (String shardFile : shardFiles) {
+			html.append("<li><a href=\"").append(shardFile).append("\">").append(shardFile).append("</a></li>");
+		}
+		html.append("</ol></body></html>");
+		try {
+			Files.write(new File(ExtentReportManager.getReportPath(), INDEX_FILE_NAME).toPath(),
+					html.toString().getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static class Shard {
+		private final ExtentReports reports;
+		private int created;
+		private int open;
+		private int unflushed;
+		private boolean retired;
+
+		private Shard(ExtentReports reports) {
+			this.reports = reports;
+		}
+	}
+
+}
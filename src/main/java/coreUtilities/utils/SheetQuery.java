@@ -0,0 +1,456 @@
+package coreUtilities.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SQL-style lookups over sheets laid out as tables, a header row followed by
+ * data rows, e.g.
+ * {@code SELECT * FROM EditDepartmentRows WHERE DepartmentCode = 'ABCDE'}.
+ * <p>
+ * The grammar is SELECT of * or a column list FROM one sheet with an optional
+ * WHERE of conditions joined by AND, each comparing a column with =, !=, &lt;&gt;,
+ * &lt;, &lt;=, &gt; or &gt;= to a quoted text or a number. A quoted value compares
+ * the cell text, a number compares cells that hold a number.
+ * <p>
+ * Parsed queries are cached as plans. A sheet is read once per file version
+ * and its indexes are built per column on first use: a hash index for quoted
+ * equality and a sorted index for numbers and ranges, so repeated lookups are
+ * O(1) or O(log n) instead of a scan of the sheet. Queries outside the grammar
+ * are not planned and {@link #plan(String)} returns null.
+ */
+public class SheetQuery {
+
+	private static final int MAX_PLANS = 1024;
+
+	private static final String IDENTIFIER = "(\\[[^\\]]+\\]|`[^`]+`|[\\w.$]+)";
+	private static final Pattern SELECT = Pattern
+			.compile("(?is)\\s*SELECT\\s+(.+?)\\s+FROM\\s+" + IDENTIFIER + "(?:\\s+WHERE\\s+(.+?))?\\s*;?\\s*");
+	private static final Pattern CONDITION = Pattern.compile("(?is)\\G\\s*" + IDENTIFIER
+			+ "\\s*(<=|>=|<>|!=|=|<|>)\\s*('(?:[^']|'')*'|-?\\d+(?:\\.\\d+)?)\\s*(AND\\b|$)");
+
+	private static final ConcurrentMap<String, Plan> plans = new ConcurrentHashMap<String, Plan>();
+	private static final ConcurrentMap<String, Table> tables = new ConcurrentHashMap<String, Table>();
+	private static final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<String, Object>();
+
+	/**
+	 * This method runs a query against a workbook.
+	 *
+	 * @param excelFilePath - {@link String} .xlsx file location
+	 * @param query         - {@link String} SELECT statement
+	 * @return read-only {@link List} of {@link ExcelRow} in sheet order
+	 * @throws IOException when the workbook cannot be read or has no such sheet
+	 */
+	public static List<ExcelRow> select(String excelFilePath, String query) throws IOException {
+		Plan plan = plan(query);
+		if (plan == null) {
+			throw new IllegalArgumentException("Unsupported query: " + query);
+		}
+		return plan.execute(table(excelFilePath, plan.sheet));
+	}
+
+	/**
+	 * This method parses a query, or returns the cached plan of an earlier call.
+	 *
+	 * @param query - {@link String} SELECT statement
+	 * @return {@link Plan}, null when the query is outside the supported grammar
+	 */
+	public static Plan plan(String query) {
+		Plan plan = plans.get(query);
+		if (plan == null) {
+			plan = parse(query);
+			if (plan == null) {
+				return null;
+			}
+			// Generated queries can be unbounded; start over rather than grow
+			if (plans.size() >= MAX_PLANS) {
+				plans.clear();
+			}
+			plans.put(query, plan);
+		}
+		return plan;
+	}
+
+	private static Plan parse(String query) {
+		Matcher select = SELECT.matcher(query);
+		if (!select.matches()) {
+			return null;
+		}
+		List<String> columns = null;
+		if (!select.group(1).trim().equals("*")) {
+			columns = new ArrayList<String>();
+			for (String column : select.group(1).split(",")) {
+				column = column.trim();
+				if (!column.matches(IDENTIFIER)) {
+					return null;
+				}
+				columns.add(unquote(column));
+			}
+		}
+		List<Condition> conditions = new ArrayList<Condition>();
+		String where = select.group(3);
+		if (where != null) {
+			Matcher condition = CONDITION.matcher(where);
+			int end = 0;
+			while (end < where.length() && condition.find()) {
+				conditions.add(new Condition(unquote(condition.group(1)), condition.group(2), condition.group(3)));
+				end = condition.end();
+				if (condition.group(4).isEmpty()) {
+					break;
+				}
+			}
+			if (end != where.length() || conditions.isEmpty()) {
+				return null;
+			}
+		}
+		return new Plan(unquote(select.group(2)), columns == null ? null : Collections.unmodifiableList(columns),
+				conditions);
+	}
+
+	private static String unquote(String identifier) {
+		char first = identifier.charAt(0);
+		return first == '[' || first == '`' ? identifier.substring(1, identifier.length() - 1) : identifier;
+	}
+
+	// Method to get a sheet, reading it again when the file changed on disk
+	private static Table table(String excelFilePath, String sheetName) throws IOException {
+		File file = new File(excelFilePath).getCanonicalFile();
+		long lastModified = file.lastModified();
+		long length = file.length();
+		String key = file.getPath() + '\0' + sheetName;
+		Table table = tables.get(key);
+		if (table != null && table.lastModified == lastModified && table.length == length) {
+			return table;
+		}
+		synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+			table = tables.get(key);
+			if (table == null || table.lastModified != lastModified || table.length != length) {
+				table = Table.read(file, sheetName, lastModified, length);
+				tables.put(key, table);
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * A parsed query: the sheet, the projected columns and the conditions.
+	 * Immutable and shared between threads.
+	 */
+	public static class Plan {
+
+		private final String sheet;
+		private final List<String> columns;
+		private final List<Condition> conditions;
+
+		Plan(String sheet, List<String> columns, List<Condition> conditions) {
+			this.sheet = sheet;
+			this.columns = columns;
+			this.conditions = conditions;
+		}
+
+		public String getSheet() {
+			return sheet;
+		}
+
+		List<ExcelRow> execute(Table table) {
+			int[] columnIndexes = new int[conditions.size()];
+			for (int i = 0; i < conditions.size(); i++) {
+				columnIndexes[i] = table.column(conditions.get(i).column);
+			}
+			// The most selective indexed condition drives, the others filter
+			int driver = -1;
+			for (int i = 0; i < conditions.size(); i++) {
+				if (conditions.get(i).rank() < (driver < 0 ? Integer.MAX_VALUE : conditions.get(driver).rank())) {
+					driver = i;
+				}
+			}
+			if (driver >= 0 && conditions.get(driver).rank() == Condition.SCAN) {
+				driver = -1;
+			}
+			int[] candidates = driver < 0 ? null : conditions.get(driver).lookup(table, columnIndexes[driver]);
+
+			List<ExcelRow> result = new ArrayList<ExcelRow>();
+			int count = candidates == null ? table.rows.size() : candidates.length;
+			for (int c = 0; c < count; c++) {
+				ExcelRow row = table.rows.get(candidates == null ? c : candidates[c]);
+				boolean matches = true;
+				for (int i = 0; i < conditions.size() && matches; i++) {
+					matches = i == driver || conditions.get(i).test(row.get(columnIndexes[i]));
+				}
+				if (matches) {
+					result.add(project(table, row));
+				}
+			}
+			return Collections.unmodifiableList(result);
+		}
+
+		private ExcelRow project(Table table, ExcelRow row) {
+			if (columns == null) {
+				return row;
+			}
+			String[] values = new String[columns.size()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = row.get(table.column(columns.get(i)));
+			}
+			return new ExcelRow(row.getRowNumber(), columns, values);
+		}
+
+		@Override
+		public String toString() {
+			return "SELECT " + (columns == null ? "*" : columns) + " FROM " + sheet + " WHERE " + conditions;
+		}
+	}
+
+	// One WHERE condition with its literal parsed once
+	static class Condition {
+
+		static final int HASH = 0;
+		static final int SORTED_POINT = 1;
+		static final int SORTED_RANGE = 2;
+		static final int SCAN = 3;
+
+		final String column;
+		final String operator;
+		final String text;
+		final Double number;
+
+		Condition(String column, String operator, String literal) {
+			this.column = column;
+			this.operator = operator.equals("<>") ? "!=" : operator;
+			if (literal.startsWith("'")) {
+				this.text = literal.substring(1, literal.length() - 1).replace("''", "'");
+				this.number = null;
+			} else {
+				this.text = literal;
+				this.number = Double.valueOf(literal);
+			}
+		}
+
+		// Cost class of the index lookup, lower is better
+		int rank() {
+			if (operator.equals("!=")) {
+				return SCAN;
+			}
+			if (operator.equals("=")) {
+				return number == null ? HASH : SORTED_POINT;
+			}
+			return SORTED_RANGE;
+		}
+
+		// Row positions in sheet order that satisfy the condition
+		int[] lookup(Table table, int column) {
+			if (rank() == HASH) {
+				int[] positions = table.hashIndex(column).get(text);
+				return positions == null ? new int[0] : positions;
+			}
+			SortedIndex index = table.sortedIndex(column);
+			if (number != null) {
+				double value = number.doubleValue();
+				return range(index.numberPositions, after -> index.numberBound(value, after));
+			}
+			return range(index.textPositions, after -> index.textBound(text, after));
+		}
+
+		// Slice of a sorted index selected by the operator, back in sheet order
+		private int[] range(int[] positions, Bound bound) {
+			int from = operator.equals(">") ? bound.at(true) : operator.startsWith("<") ? 0 : bound.at(false);
+			int to = operator.equals("<") ? bound.at(false) : operator.startsWith(">") ? positions.length : bound.at(true);
+			int[] slice = Arrays.copyOfRange(positions, from, Math.max(from, to));
+			Arrays.sort(slice);
+			return slice;
+		}
+
+		boolean test(String cell) {
+			if (cell == null) {
+				return false;
+			}
+			int compared;
+			if (number != null) {
+				Double value = toNumber(cell);
+				if (value == null) {
+					return false;
+				}
+				compared = Double.compare(value.doubleValue(), number.doubleValue());
+			} else {
+				compared = cell.compareTo(text);
+			}
+			switch (operator) {
+			case "=":
+				return compared == 0;
+			case "!=":
+				return compared != 0;
+			case "<":
+				return compared < 0;
+			case "<=":
+				return compared <= 0;
+			case ">":
+				return compared > 0;
+			default:
+				return compared >= 0;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return column + " " + operator + " " + (number != null ? text : "'" + text + "'");
+		}
+	}
+
+	// Functional view of a binary search, see SortedIndex
+	interface Bound {
+		int at(boolean after);
+	}
+
+	static Double toNumber(String cell) {
+		try {
+			Double value = Double.valueOf(cell);
+			return value.isNaN() ? null : value;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	// The rows of one sheet at one file version, with lazily built indexes
+	static class Table {
+
+		final long lastModified;
+		final long length;
+		final List<String> headers;
+		final List<ExcelRow> rows;
+		private final ConcurrentMap<Integer, Map<String, int[]>> hashIndexes = new ConcurrentHashMap<Integer, Map<String, int[]>>();
+		private final ConcurrentMap<Integer, SortedIndex> sortedIndexes = new ConcurrentHashMap<Integer, SortedIndex>();
+
+		private Table(long lastModified, long length, List<String> headers, List<ExcelRow> rows) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.headers = headers;
+			this.rows = rows;
+		}
+
+		static Table read(File file, String sheetName, long lastModified, long length) throws IOException {
+			List<ExcelRow> rows = new ArrayList<ExcelRow>();
+			try (ExcelStreamReader reader = new ExcelStreamReader(file.getPath(), sheetName)) {
+				while (reader.hasNext()) {
+					rows.add(reader.next());
+				}
+				return new Table(lastModified, length, reader.getHeaders(), rows);
+			}
+		}
+
+		int column(String header) {
+			int column = headers.indexOf(header);
+			if (column < 0) {
+				throw new IllegalArgumentException("No column " + header + " in " + headers);
+			}
+			return column;
+		}
+
+		// Cell text to the row positions holding it, in sheet order
+		Map<String, int[]> hashIndex(int column) {
+			return hashIndexes.computeIfAbsent(column, c -> {
+				Map<String, List<Integer>> lists = new HashMap<String, List<Integer>>();
+				for (int i = 0; i < rows.size(); i++) {
+					String cell = rows.get(i).get(c);
+					if (cell != null) {
+						lists.computeIfAbsent(cell, k -> new ArrayList<Integer>()).add(i);
+					}
+				}
+				Map<String, int[]> index = new HashMap<String, int[]>(lists.size() * 2);
+				for (Map.Entry<String, List<Integer>> entry : lists.entrySet()) {
+					index.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+				}
+				return index;
+			});
+		}
+
+		SortedIndex sortedIndex(int column) {
+			return sortedIndexes.computeIfAbsent(column, c -> new SortedIndex(rows, c));
+		}
+	}
+
+	// Cells of one column sorted as numbers and as text, with their row positions
+	static class SortedIndex {
+
+		final double[] numbers;
+		final int[] numberPositions;
+		final String[] texts;
+		final int[] textPositions;
+
+		SortedIndex(List<ExcelRow> rows, int column) {
+			List<Integer> numeric = new ArrayList<Integer>();
+			List<Integer> text = new ArrayList<Integer>();
+			double[] values = new double[rows.size()];
+			for (int i = 0; i < rows.size(); i++) {
+				String cell = rows.get(i).get(column);
+				if (cell == null) {
+					continue;
+				}
+				text.add(i);
+				Double value = toNumber(cell);
+				if (value != null) {
+					values[i] = value.doubleValue();
+					numeric.add(i);
+				}
+			}
+			numeric.sort(Comparator.comparingDouble(i -> values[i]));
+			text.sort(Comparator.comparing(i -> rows.get(i).get(column)));
+
+			numbers = new double[numeric.size()];
+			numberPositions = new int[numeric.size()];
+			for (int i = 0; i < numbers.length; i++) {
+				numberPositions[i] = numeric.get(i);
+				numbers[i] = values[numberPositions[i]];
+			}
+			texts = new String[text.size()];
+			textPositions = new int[text.size()];
+			for (int i = 0; i < texts.length; i++) {
+				textPositions[i] = text.get(i);
+				texts[i] = rows.get(textPositions[i]).get(column);
+			}
+		}
+
+		// First index whose number is greater than (after) or not less than value
+		int numberBound(double value, boolean after) {
+			int low = 0;
+			int high = numbers.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				int compared = Double.compare(numbers[mid], value);
+				if (compared < 0 || (after && compared == 0)) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		// First index whose text is greater than (after) or not less than value
+		int textBound(String value, boolean after) {
+			int low = 0;
+			int high = texts.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				int compared = texts[mid].compareTo(value);
+				if (compared < 0 || (after && compared == 0)) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+	}
+
+}
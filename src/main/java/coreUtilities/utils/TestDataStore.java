@@ -0,0 +1,290 @@
+package coreUtilities.utils;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import restConfig.ConfigManager;
+
+/**
+ * Precompiled, memory-mapped form of the .xlsx test data files; JSON test data
+ * is served by {@link JsonData}. Each workbook is converted once into a binary
+ * file under test.data.cacheDir holding a sorted index of (section, key)
+ * entries, where a section is a sheet name. The sheet names are also listed
+ * under the empty section, which Excel does not allow as a sheet name, so an
+ * empty sheet can be told from a missing one. Lookups binary search the mapped
+ * index, so POI is not touched while the compiled file is current. The file
+ * records the SHA-256 of its source and is rebuilt when the source changes.
+ * 
+ * Layout: magic, version, source hash, entry count, then per entry the offset
+ * and length of its key ("section\0key") and value, sorted by key bytes, then
+ * the UTF-8 data.
+ */
+public class TestDataStore {
+
+	private static final int MAGIC = 0x54445331; // "TDS1"
+	private static final int VERSION = 2;
+	private static final int HASH_SIZE = 32;
+	private static final int HEADER_SIZE = 4 + 4 + HASH_SIZE + 4;
+	private static final int INDEX_ENTRY_SIZE = 16;
+	private static final char SEPARATOR = '\0';
+	private static final String SHEETS = "";
+
+	private static final ConcurrentMap<String, TestDataStore> stores = new ConcurrentHashMap<String, TestDataStore>();
+	private static final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<String, Object>();
+
+	private final MappedByteBuffer buffer;
+	private final int count;
+
+	private TestDataStore(MappedByteBuffer buffer) {
+		this.buffer = buffer;
+		this.count = buffer.getInt(4 + 4 + HASH_SIZE);
+	}
+
+	/**
+	 * This method returns the compiled store of a test data file, compiling it
+	 * first when there is no compiled file yet or the source changed. Each source
+	 * is checked once per process.
+	 * 
+	 * @param sourcePath - {@link String} .xlsx file location
+	 * @return {@link TestDataStore}
+	 * @throws IOException when the source or compiled file cannot be read
+	 */
+	public static TestDataStore open(String sourcePath) throws IOException {
+		File source = new File(sourcePath).getCanonicalFile();
+		TestDataStore store = stores.get(source.getPath());
+		if (store != null) {
+			return store;
+		}
+		// One compile per file at a time; other files are not blocked
+		synchronized (locks.computeIfAbsent(source.getPath(), k -> new Object())) {
+			store = stores.get(source.getPath());
+			if (store == null) {
+				store = load(source);
+				stores.put(source.getPath(), store);
+			}
+		}
+		return store;
+	}
+
+	/**
+	 * This method looks up one value.
+	 * 
+	 * @param section - {@link String} sheet name
+	 * @param key     - {@link String} key within the section
+	 * @return {@link String}, null when absent
+	 */
+	public String get(String section, String key) {
+		int index = search(entryKey(section, key));
+		return index < 0 ? null : value(index);
+	}
+
+	/**
+	 * @param sheetName - {@link String} sheet name
+	 * @return true when the compiled workbook has the sheet, even if it is empty
+	 */
+	public boolean hasSheet(String sheetName) {
+		return get(SHEETS, sheetName) != null;
+	}
+
+	/**
+	 * This method returns all entries of a section, e.g. a whole sheet.
+	 * 
+	 * @param section - {@link String} sheet name
+	 * @return immutable {@link Map} of key to value, empty when the section is
+	 *         absent
+	 */
+	public Map<String, String> getSection(String section) {
+		byte[] prefix = (section + SEPARATOR).getBytes(StandardCharsets.UTF_8);
+		int index = search(prefix);
+		int first = index < 0 ? -index - 1 : index;
+		Map<String, String> entries = new LinkedHashMap<String, String>();
+		for (int i = first; i < count && startsWith(key(i), prefix); i++) {
+			String key = new String(key(i), StandardCharsets.UTF_8);
+			entries.put(key.substring(key.indexOf(SEPARATOR) + 1), value(i));
+		}
+		return Collections.unmodifiableMap(entries);
+	}
+
+	/**
+	 * This method compiles the files listed in test.data.files on a background
+	 * thread so the first lookup only maps the compiled file.
+	 */
+	public static void prefetch() {
+		final String paths = ConfigManager.getProperty("test.data.files", "");
+		if (paths.trim().isEmpty()) {
+			return;
+		}
+		Thread prefetcher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (String path : paths.split(",")) {
+					try {
+						open(path.trim());
+					} catch (IOException | RuntimeException e) {
+						System.out.println("Test data precompile failed for " + path.trim() + ": " + e);
+					}
+				}
+			}
+		}, "test-data-precompile");
+		prefetcher.setDaemon(true);
+		prefetcher.start();
+	}
+
+	private static TestDataStore load(File source) throws IOException {
+		byte[] hash = sha256(source.toPath());
+		Path compiled = new File(ConfigManager.getProperty("test.data.cacheDir", "target/test-data-cache"),
+				source.getName() + "-" + Integer.toHexString(source.getPath().hashCode()) + ".tds").toPath();
+		if (!isCurrent(compiled, hash)) {
+			compile(source, hash, compiled);
+		}
+		try (FileChannel channel = FileChannel.open(compiled, StandardOpenOption.READ)) {
+			return new TestDataStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	private static boolean isCurrent(Path compiled, byte[] hash) throws IOException {
+		if (!Files.isRegularFile(compiled) || Files.size(compiled) < HEADER_SIZE) {
+			return false;
+		}
+		try (DataInputStream header = new DataInputStream(Files.newInputStream(compiled))) {
+			if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+				return false;
+			}
+			byte[] stored = new byte[HASH_SIZE];
+			header.readFully(stored);
+			return Arrays.equals(stored, hash);
+		}
+	}
+
+	// Written to a temporary file and moved into place so parallel JVMs never map a partial file
+	private static void compile(File source, byte[] hash, Path compiled) throws IOException {
+		// Sorting on the UTF-8 bytes keeps the index order equal to the lookup order
+		Map<byte[], byte[]> sorted = new TreeMap<byte[], byte[]>(TestDataStore::compare);
+		for (Map.Entry<String, Map<String, String>> sheet : WorkbookCache.getWorkbook(source.getPath()).entrySet()) {
+			sorted.put(entryKey(SHEETS, sheet.getKey()), new byte[0]);
+			for (Map.Entry<String, String> entry : sheet.getValue().entrySet()) {
+				sorted.put(entryKey(sheet.getKey(), entry.getKey()), entry.getValue().getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		int dataSize = 0;
+		for (Map.Entry<byte[], byte[]> entry : sorted.entrySet()) {
+			dataSize += entry.getKey().length + entry.getValue().length;
+		}
+		int dataStart = HEADER_SIZE + sorted.size() * INDEX_ENTRY_SIZE;
+		ByteBuffer out = ByteBuffer.allocate(dataStart + dataSize);
+		out.putInt(MAGIC).putInt(VERSION).put(hash).putInt(sorted.size());
+		int offset = dataStart;
+		for (Map.Entry<byte[], byte[]> entry : sorted.entrySet()) {
+			out.putInt(offset).putInt(entry.getKey().length);
+			offset += entry.getKey().length;
+			out.putInt(offset).putInt(entry.getValue().length);
+			offset += entry.getValue().length;
+		}
+		for (Map.Entry<byte[], byte[]> entry : sorted.entrySet()) {
+			out.put(entry.getKey()).put(entry.getValue());
+		}
+		Files.createDirectories(compiled.toAbsolutePath().getParent());
+		Path temporary = Files.createTempFile(compiled.toAbsolutePath().getParent(), source.getName(), ".tmp");
+		Files.write(temporary, out.array());
+		Files.move(temporary, compiled, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		System.out.println("Compiled test data " + source.getName() + ": " + sorted.size() + " entries");
+	}
+
+	private static byte[] entryKey(String section, String key) {
+		return (section + SEPARATOR + key).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static byte[] sha256(Path source) throws IOException {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(source));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// Binary search over the index; returns the entry or -(insertion point) - 1
+	private int search(byte[] key) {
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compare(key(middle), key);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -(low + 1);
+	}
+
+	private byte[] key(int index) {
+		int entry = HEADER_SIZE + index * INDEX_ENTRY_SIZE;
+		return bytes(buffer.getInt(entry), buffer.getInt(entry + 4));
+	}
+
+	private String value(int index) {
+		int entry = HEADER_SIZE + index * INDEX_ENTRY_SIZE;
+		return new String(bytes(buffer.getInt(entry + 8), buffer.getInt(entry + 12)), StandardCharsets.UTF_8);
+	}
+
+	// Absolute reads only, so the shared buffer is safe across threads
+	private byte[] bytes(int offset, int length) {
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = buffer.get(offset + i);
+		}
+		return bytes;
+	}
+
+	private static boolean startsWith(byte[] bytes, byte[] prefix) {
+		if (bytes.length < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (bytes[i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int compare(byte[] first, byte[] second) {
+		int length = Math.min(first.length, second.length);
+		for (int i = 0; i < length; i++) {
+			int difference = (first[i] & 0xff) - (second[i] & 0xff);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return first.length - second.length;
+	}
+
+	// Usage: TestDataStore <source files...>, compiles ahead of a run
+	public static void main(String[] args) throws IOException {
+		for (String path : args) {
+			open(path);
+		}
+	}
+
+}
@@ -0,0 +1,143 @@
+package coreUtilities.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+
+import restConfig.ConfigManager;
+
+/**
+ * Process wide cache of key/value workbooks. A workbook is parsed once, all its
+ * sheets in one pass, and kept under its canonical path together with the file
+ * modification time and size; a changed file is parsed again on the next read.
+ * The sheets are immutable maps, safe to share between parallel test threads.
+ */
+public class WorkbookCache {
+
+	private static final ConcurrentMap<String, CachedWorkbook> workbooks = new ConcurrentHashMap<String, CachedWorkbook>();
+	private static final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<String, Object>();
+
+	/**
+	 * This method returns one sheet of a workbook as an immutable map of the first
+	 * column to the second column.
+	 * 
+	 * @param excelFilePath - {@link String} excel sheet location
+	 * @param sheetName     - {@link String} sheet name
+	 * @return {@link Map}
+	 * @throws IOException when the workbook cannot be read
+	 */
+	public static Map<String, String> getSheet(String excelFilePath, String sheetName) throws IOException {
+		Map<String, String> sheet = getWorkbook(excelFilePath).get(sheetName);
+		if (sheet == null) {
+			throw new IllegalArgumentException("Sheet " + sheetName + " not found in " + excelFilePath);
+		}
+		return sheet;
+	}
+
+	/**
+	 * This method returns every sheet of a workbook, parsing it when it is not
+	 * cached yet or changed on disk.
+	 * 
+	 * @param excelFilePath - {@link String} excel sheet location
+	 * @return {@link Map} of sheet name to sheet
+	 * @throws IOException when the workbook cannot be read
+	 */
+	public static Map<String, Map<String, String>> getWorkbook(String excelFilePath) throws IOException {
+		File file = new File(excelFilePath).getCanonicalFile();
+		long lastModified = file.lastModified();
+		long length = file.length();
+		CachedWorkbook cached = workbooks.get(file.getPath());
+		if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+			return cached.sheets;
+		}
+		// One parse per file at a time; reads of other workbooks are not blocked
+		synchronized (internLock(file.getPath())) {
+			cached = workbooks.get(file.getPath());
+			if (cached == null || cached.lastModified != lastModified || cached.length != length) {
+				cached = new CachedWorkbook(lastModified, length, parse(file));
+				workbooks.put(file.getPath(), cached);
+			}
+		}
+		return cached.sheets;
+	}
+
+	/**
+	 * This method parses the workbooks listed in excel.prefetch on a background
+	 * thread so the first test does not pay for it.
+	 */
+	public static void prefetch() {
+		final String paths = ConfigManager.getProperty("excel.prefetch", "");
+		if (paths.trim().isEmpty()) {
+			return;
+		}
+		Thread prefetcher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (String path : paths.split(",")) {
+					try {
+						getWorkbook(path.trim());
+					} catch (IOException | RuntimeException e) {
+						System.out.println("Workbook prefetch failed for " + path.trim() + ": " + e);
+					}
+				}
+			}
+		}, "workbook-prefetch");
+		prefetcher.setDaemon(true);
+		prefetcher.start();
+	}
+
+	private static Object internLock(String path) {
+		return locks.computeIfAbsent(path, key -> new Object());
+	}
+
+	private static Map<String, Map<String, String>> parse(File file) throws IOException {
+		Map<String, Map<String, String>> sheets = new LinkedHashMap<String, Map<String, String>>();
+		try (FileInputStream fileInputStream = new FileInputStream(file);
+				Workbook workbook = WorkbookFactory.create(fileInputStream)) {
+			for (Sheet sheet : workbook) {
+				Map<String, String> dataMap = new LinkedHashMap<String, String>();
+				for (Row row : sheet) {
+					// The first column holds the key and the second column the value
+					Cell keyCell = row.getCell(0);
+					Cell valueCell = row.getCell(1);
+					if (keyCell != null && valueCell != null) {
+						if (keyCell.getCellType() != CellType.STRING) {
+							keyCell.setCellType(CellType.STRING);
+						}
+						if (valueCell.getCellType() != CellType.STRING) {
+							valueCell.setCellType(CellType.STRING);
+						}
+						dataMap.put(keyCell.getStringCellValue(), valueCell.getStringCellValue());
+					}
+				}
+				sheets.put(sheet.getSheetName(), Collections.unmodifiableMap(dataMap));
+			}
+		}
+		return Collections.unmodifiableMap(sheets);
+	}
+
+	private static class CachedWorkbook {
+		private final long lastModified;
+		private final long length;
+		private final Map<String, Map<String, String>> sheets;
+
+		private CachedWorkbook(long lastModified, long length, Map<String, Map<String, String>> sheets) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.sheets = sheets;
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+package rest;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import coreUtilities.profiling.ApiCallEvent;
+import coreUtilities.utils.Log;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Times every ApiUtil request and notifies the registered
+ * {@link ApiCallListener}s with the endpoint, status, size and latency.
+ */
+public class ApiCallFilter implements OrderedFilter {
+
+	private static final List<ApiCallListener> listeners = new CopyOnWriteArrayList<ApiCallListener>();
+
+	private final String basePath;
+
+	public ApiCallFilter(String baseUrl) {
+		this.basePath = URI.create(baseUrl).getPath();
+	}
+
+	// Method to register a listener for every subsequent API call
+	public static void addListener(ApiCallListener listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+			FilterContext ctx) {
+		Log.startRequest();
+		ApiCallEvent event = new ApiCallEvent();
+		event.begin();
+		long start = System.nanoTime();
+		Response response = null;
+		try {
+			response = ctx.next(requestSpec, responseSpec);
+			return response;
+		} finally {
+			long latencyNanos = System.nanoTime() - start;
+			event.end();
+			if (event.shouldCommit() || !listeners.isEmpty()) {
+				String method = requestSpec.getMethod();
+				String endpoint = endpoint(requestSpec.getURI());
+				int statusCode = response == null ? -1 : response.statusCode();
+				long bytes = response == null ? 0 : response.asByteArray().length;
+				if (event.shouldCommit()) {
+					event.method = method;
+					event.endpoint = endpoint;
+					event.statusCode = statusCode;
+					event.bytes = bytes;
+					event.commit();
+				}
+				for (ApiCallListener listener : listeners) {
+					listener.onApiCall(method, endpoint, statusCode, bytes, latencyNanos);
+				}
+			}
+			Log.endRequest();
+		}
+	}
+
+	// Just outside the recorder so the timing covers the round trip only
+	@Override
+	public int getOrder() {
+		return OrderedFilter.LOWEST_PRECEDENCE - 1;
+	}
+
+	private String endpoint(String uri) {
+		String path = URI.create(uri).getRawPath();
+		return path.startsWith(basePath) ? path.substring(basePath.length()) : path;
+	}
+
+}
@@ -0,0 +1,21 @@
+package rest;
+
+/**
+ * Receives one notification per ApiUtil call from {@link ApiCallFilter}. Called
+ * on the thread that made the request, so implementations must be cheap and
+ * thread-safe.
+ */
+public interface ApiCallListener {
+
+	/**
+	 * @param method       - HTTP method
+	 * @param endpoint     - endpoint path relative to the API base URL, without
+	 *                     the query string (e.g. /Settings/Departments)
+	 * @param statusCode   - HTTP status code, -1 when no response was received
+	 * @param bytes        - response body size in bytes
+	 * @param latencyNanos - time from sending the request to receiving the
+	 *                     response
+	 */
+	void onApiCall(String method, String endpoint, int statusCode, long bytes, long latencyNanos);
+
+}
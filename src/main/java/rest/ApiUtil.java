@@ -9,7 +9,13 @@ import io.restassured.specification.RequestSpecification;
 
 public class ApiUtil {
 
-	private static final String BASE_URL = "https://healthapp.yaksha.com/api";
+	private static final String BASE_URL = TrafficRecorder.resolveBaseUrl("https://healthapp.yaksha.com/api");
+
+	static {
+		RestAssured.config = RestAssured.config().httpClient(HttpClientPool.pooledConfig());
+		RestAssured.filters(new AuthFailureFilter(), new ApiCallFilter(BASE_URL), new TrafficRecorder(),
+				new FlightRecorder());
+	}
 
 	/**
 	 * @Test1 This method creates a new appointment with authorization.
@@ -63,10 +69,6 @@ public class ApiUtil {
 		// Send the PUT request
 		Response response = request.put(BASE_URL + endpoint).then().extract().response();
 
-		System.out.println("URL");
-		System.out.println(BASE_URL + endpoint);
-		System.out.println(response.prettyPrint());
-
 		// Extract the necessary details from the response
 		int statusCode = response.statusCode();
 		String status = response.jsonPath().getString("Status");
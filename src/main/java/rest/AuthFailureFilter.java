@@ -0,0 +1,30 @@
+package rest;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * RestAssured filter that hands rejected bearer tokens back to {@link AuthUtil}
+ * so the identity is rotated out of the pool.
+ */
+public class AuthFailureFilter implements OrderedFilter {
+
+	@Override
+	public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+			FilterContext ctx) {
+		Response response = ctx.next(requestSpec, responseSpec);
+		if (response.statusCode() == 401) {
+			AuthUtil.reportAuthFailure(requestSpec.getHeaders().getValue("Authorization"));
+		}
+		return response;
+	}
+
+	@Override
+	public int getOrder() {
+		return OrderedFilter.HIGHEST_PRECEDENCE;
+	}
+
+}
@@ -1,17 +1,150 @@
 package rest;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import coreUtilities.utils.Log;
 import restConfig.ConfigManager;
 
 public class AuthUtil {
 
+	// Pool of identities loaded once from config, each thread sticks to one of them
+	private static final List<Identity> identities = loadIdentities();
+	private static final AtomicInteger nextIdentity = new AtomicInteger();
+	private static final ThreadLocal<Identity> assignedIdentity = new ThreadLocal<Identity>();
+
 	// Method to get Bearer Token from config file
 	public static String getBearerToken() {
-		return ConfigManager.getProperty("auth.bearer.token"); // Fetch from config
+		return currentIdentity().token;
 	}
 
 	// Method to set Authorization header
 	public static String getAuthHeader() {
-		return "Bearer " + getBearerToken();
+		Identity identity = currentIdentity();
+		identity.requests.incrementAndGet();
+		return "Bearer " + identity.token;
+	}
+
+	/**
+	 * This method pins the calling thread (or virtual user) to the named identity,
+	 * so every request it sends is made on behalf of the same user session.
+	 * 
+	 * @param identityName - {@link String} name as listed in auth.identities
+	 */
+	public static void bindIdentity(String identityName) {
+		for (Identity identity : identities) {
+			if (identity.name.equals(identityName)) {
+				assignedIdentity.set(identity);
+				return;
+			}
+		}
+		throw new IllegalArgumentException("Unknown identity: " + identityName);
+	}
+
+	// Method to get the identity name the calling thread is currently using
+	public static String getIdentityName() {
+		return currentIdentity().name;
+	}
+
+	/**
+	 * This method rotates the identity owning the given Authorization header out of
+	 * the pool. Threads bound to it are moved to the next active identity on their
+	 * next request. When every identity has failed the pool is reactivated so runs
+	 * keep going with the server's own error responses.
+	 * 
+	 * @param authHeader - {@link String} Authorization header value that was
+	 *                   rejected
+	 */
+	public static void reportAuthFailure(String authHeader) {
+		for (Identity identity : identities) {
+			if (authHeader != null && authHeader.equals("Bearer " + identity.token)) {
+				identity.failures.incrementAndGet();
+				if (identity.active) {
+					identity.active = false;
+					Log.warn("Identity " + identity.name + " rejected, rotating it out of the pool.");
+				}
+			}
+		}
+		boolean anyActive = false;
+		for (Identity identity : identities) {
+			anyActive |= identity.active;
+		}
+		if (!anyActive) {
+			for (Identity identity : identities) {
+				identity.active = true;
+			}
+		}
+	}
+
+	// Method to get the number of requests sent on behalf of each identity
+	public static Map<String, Long> getRequestCounts() {
+		Map<String, Long> counts = new LinkedHashMap<String, Long>();
+		for (Identity identity : identities) {
+			counts.put(identity.name, identity.requests.get());
+		}
+		return Collections.unmodifiableMap(counts);
+	}
+
+	// Method to print the per identity request distribution of the run
+	public static void printIdentityReport() {
+		Log.info("Requests per identity:");
+		for (Identity identity : identities) {
+			Log.info("  " + identity.name + " : " + identity.requests.get() + " requests, "
+					+ identity.failures.get() + " auth failures" + (identity.active ? "" : " (rotated out)"));
+		}
+	}
+
+	private static Identity currentIdentity() {
+		Identity identity = assignedIdentity.get();
+		if (identity == null || !identity.active) {
+			identity = nextActiveIdentity();
+			assignedIdentity.set(identity);
+		}
+		return identity;
+	}
+
+	private static Identity nextActiveIdentity() {
+		for (int i = 0; i < identities.size(); i++) {
+			Identity identity = identities.get(Math.floorMod(nextIdentity.getAndIncrement(), identities.size()));
+			if (identity.active) {
+				return identity;
+			}
+		}
+		return identities.get(0);
+	}
+
+	// Identities come from auth.identities=name1,name2 with auth.identity.<name>.token,
+	// falling back to the single auth.bearer.token
+	private static List<Identity> loadIdentities() {
+		List<Identity> pool = new ArrayList<Identity>();
+		for (String name : ConfigManager.getProperty("auth.identities", "").split(",")) {
+			String token = ConfigManager.getProperty("auth.identity." + name.trim() + ".token", null);
+			if (!name.trim().isEmpty() && token != null) {
+				pool.add(new Identity(name.trim(), token));
+			}
+		}
+		if (pool.isEmpty()) {
+			pool.add(new Identity("default", ConfigManager.getProperty("auth.bearer.token")));
+		}
+		return Collections.unmodifiableList(pool);
+	}
+
+	private static class Identity {
+		private final String name;
+		private final String token;
+		private final AtomicLong requests = new AtomicLong();
+		private final AtomicLong failures = new AtomicLong();
+		private volatile boolean active = true;
+
+		private Identity(String name, String token) {
+			this.name = name;
+			this.token = token;
+		}
 	}
 
 }
@@ -0,0 +1,136 @@
+package rest;
+
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import restConfig.ConfigManager;
+
+/**
+ * Keeps the last flight.recorder.size request/response exchanges of each
+ * thread in a preallocated ring. Recording only stores references into the
+ * next slot; nothing is formatted until {@link #dump()} is called for a failed
+ * test.
+ */
+public class FlightRecorder implements OrderedFilter {
+
+	private static final int SIZE = Math.max(1, ConfigManager.getIntProperty("flight.recorder.size", 8));
+
+	private static final ThreadLocal<Ring> rings = new ThreadLocal<Ring>() {
+		@Override
+		protected Ring initialValue() {
+			return new Ring(SIZE);
+		}
+	};
+
+	@Override
+	public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+			FilterContext ctx) {
+		Slot slot = rings.get().next();
+		slot.method = requestSpec.getMethod();
+		slot.uri = requestSpec.getURI();
+		slot.requestHeaders = requestSpec.getHeaders();
+		slot.requestBody = requestSpec.getBody();
+		slot.response = null;
+		slot.failure = null;
+		long start = System.nanoTime();
+		try {
+			slot.response = ctx.next(requestSpec, responseSpec);
+			return slot.response;
+		} catch (RuntimeException e) {
+			slot.failure = e;
+			throw e;
+		} finally {
+			slot.latencyNanos = System.nanoTime() - start;
+		}
+	}
+
+	// Outside the call timing so recording is not counted as latency
+	@Override
+	public int getOrder() {
+		return OrderedFilter.LOWEST_PRECEDENCE - 2;
+	}
+
+	// Method to forget the exchanges of the previous test on the calling thread
+	public static void clear() {
+		rings.get().clear();
+	}
+
+	/**
+	 * This method formats the recorded exchanges of the calling thread, oldest
+	 * first. Authorization headers are masked.
+	 * 
+	 * @return {@link String}, empty when nothing was recorded
+	 */
+	public static String dump() {
+		Ring ring = rings.get();
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < ring.count; i++) {
+			Slot slot = ring.slots[(ring.next - ring.count + i + ring.slots.length) % ring.slots.length];
+			text.append("#").append(i + 1).append(" ").append(slot.method).append(" ").append(slot.uri).append(" (")
+					.append(slot.latencyNanos / 1_000_000).append(" ms)\n");
+			appendHeaders(text, slot.requestHeaders);
+			if (slot.requestBody != null) {
+				text.append(slot.requestBody).append("\n");
+			}
+			if (slot.response != null) {
+				text.append("<- ").append(slot.response.getStatusLine()).append("\n");
+				appendHeaders(text, slot.response.getHeaders());
+				text.append(slot.response.asPrettyString()).append("\n");
+			} else if (slot.failure != null) {
+				text.append("<- ").append(slot.failure).append("\n");
+			}
+			text.append("\n");
+		}
+		return text.toString();
+	}
+
+	private static void appendHeaders(StringBuilder text, Headers headers) {
+		if (headers == null) {
+			return;
+		}
+		for (Header header : headers) {
+			text.append("   ").append(header.getName()).append(": ")
+					.append(header.getName().equalsIgnoreCase("Authorization") ? "Bearer ***" : header.getValue())
+					.append("\n");
+		}
+	}
+
+	private static class Ring {
+		private final Slot[] slots;
+		private int next;
+		private int count;
+
+		private Ring(int size) {
+			slots = new Slot[size];
+			for (int i = 0; i < size; i++) {
+				slots[i] = new Slot();
+			}
+		}
+
+		private Slot next() {
+			Slot slot = slots[next];
+			next = (next + 1) % slots.length;
+			count = Math.min(count + 1, slots.length);
+			return slot;
+		}
+
+		private void clear() {
+			count = 0;
+		}
+	}
+
+	private static class Slot {
+		private String method;
+		private String uri;
+		private Headers requestHeaders;
+		private Object requestBody;
+		private Response response;
+		private RuntimeException failure;
+		private long latencyNanos;
+	}
+
+}
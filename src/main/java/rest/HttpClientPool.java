@@ -0,0 +1,36 @@
+package rest;
+
+import org.apache.http.client.HttpClient;
+
+import io.restassured.config.HttpClientConfig;
+import restConfig.ConfigManager;
+
+/**
+ * Shares one pooled HttpClient across every RestAssured request so TLS
+ * connections opened once (e.g. during warm-up) are kept alive and reused by
+ * the tests instead of a new client and handshake per call.
+ */
+public class HttpClientPool {
+
+	private static final int MAX_CONNECTIONS = ConfigManager.getIntProperty("http.pool.maxConnections", 20);
+
+	// Method to get the RestAssured client configuration backed by the pool
+	public static HttpClientConfig pooledConfig() {
+		return HttpClientConfig.httpClientConfig().reuseHttpClientInstance()
+				.httpClientFactory(new HttpClientConfig.HttpClientFactory() {
+					// RestAssured casts the client to AbstractHttpClient, so the
+					// HttpClientBuilder client cannot be used; names are qualified
+					// so the suppression also covers them
+					@Override
+					@SuppressWarnings("deprecation")
+					public HttpClient createHttpClient() {
+						org.apache.http.impl.conn.PoolingClientConnectionManager connectionManager =
+								new org.apache.http.impl.conn.PoolingClientConnectionManager();
+						connectionManager.setMaxTotal(MAX_CONNECTIONS);
+						connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS);
+						return new org.apache.http.impl.client.DefaultHttpClient(connectionManager);
+					}
+				});
+	}
+
+}
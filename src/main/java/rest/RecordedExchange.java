@@ -0,0 +1,66 @@
+package rest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One request/response pair captured by {@link TrafficRecorder}.
+ */
+public class RecordedExchange {
+
+	private final String method;
+	private final String endpoint;
+	private final List<Map.Entry<String, String>> requestHeaders;
+	private final String requestBody;
+	private final int statusCode;
+	private final List<Map.Entry<String, String>> responseHeaders;
+	private final byte[] responseBody;
+	private final long latencyMillis;
+
+	public RecordedExchange(String method, String endpoint, List<Map.Entry<String, String>> requestHeaders,
+			String requestBody, int statusCode, List<Map.Entry<String, String>> responseHeaders, byte[] responseBody,
+			long latencyMillis) {
+		this.method = method;
+		this.endpoint = endpoint;
+		this.requestHeaders = requestHeaders;
+		this.requestBody = requestBody;
+		this.statusCode = statusCode;
+		this.responseHeaders = responseHeaders;
+		this.responseBody = responseBody;
+		this.latencyMillis = latencyMillis;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	// Path and query string as sent on the wire, e.g. /api/Settings/Departments
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	public List<Map.Entry<String, String>> getRequestHeaders() {
+		return requestHeaders;
+	}
+
+	public String getRequestBody() {
+		return requestBody;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	public List<Map.Entry<String, String>> getResponseHeaders() {
+		return responseHeaders;
+	}
+
+	public byte[] getResponseBody() {
+		return responseBody;
+	}
+
+	public long getLatencyMillis() {
+		return latencyMillis;
+	}
+
+}
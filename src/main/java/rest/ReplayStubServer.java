@@ -0,0 +1,116 @@
+package rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import coreUtilities.utils.Log;
+
+/**
+ * Local HTTP stub that answers requests from a {@link TrafficLog} recording.
+ * Requests are matched on method, path and query; repeated calls to the same
+ * endpoint are served in recording order and the last one is repeated once
+ * they run out. Original latencies are reproduced, multiplied by the latency
+ * scale (0 serves immediately).
+ */
+public class ReplayStubServer implements HttpHandler {
+
+	private final Map<String, List<RecordedExchange>> recordings = new HashMap<String, List<RecordedExchange>>();
+	private final Map<String, AtomicInteger> cursors = new ConcurrentHashMap<String, AtomicInteger>();
+	private final double latencyScale;
+	private HttpServer server;
+
+	public ReplayStubServer(List<RecordedExchange> exchanges, double latencyScale) {
+		this.latencyScale = latencyScale;
+		for (RecordedExchange exchange : exchanges) {
+			String key = key(exchange.getMethod(), exchange.getEndpoint());
+			if (!recordings.containsKey(key)) {
+				recordings.put(key, new ArrayList<RecordedExchange>());
+				cursors.put(key, new AtomicInteger());
+			}
+			recordings.get(key).add(exchange);
+		}
+	}
+
+	/**
+	 * This method starts the stub on the loopback interface.
+	 * 
+	 * @param port - {@link Integer} port to bind, 0 picks a free one
+	 * @throws IOException
+	 */
+	public void start(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/", this);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		Log.info("Replaying " + recordings.size() + " recorded endpoints on port " + getPort());
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	public void stop() {
+		server.stop(0);
+	}
+
+	@Override
+	public void handle(HttpExchange httpExchange) throws IOException {
+		String key = key(httpExchange.getRequestMethod(), httpExchange.getRequestURI().toString());
+		List<RecordedExchange> candidates = recordings.get(key);
+		if (candidates == null) {
+			byte[] message = ("No recording for " + key).getBytes("UTF-8");
+			httpExchange.sendResponseHeaders(404, message.length);
+			writeAndClose(httpExchange, message);
+			return;
+		}
+		int index = Math.min(cursors.get(key).getAndIncrement(), candidates.size() - 1);
+		RecordedExchange recorded = candidates.get(index);
+		long delay = Math.round(recorded.getLatencyMillis() * latencyScale);
+		if (delay > 0) {
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		for (Map.Entry<String, String> header : recorded.getResponseHeaders()) {
+			if (header.getKey().equalsIgnoreCase("Content-Type")) {
+				httpExchange.getResponseHeaders().add(header.getKey(), header.getValue());
+			}
+		}
+		byte[] body = recorded.getResponseBody();
+		httpExchange.sendResponseHeaders(recorded.getStatusCode(), body.length == 0 ? -1 : body.length);
+		writeAndClose(httpExchange, body);
+	}
+
+	private static void writeAndClose(HttpExchange httpExchange, byte[] body) throws IOException {
+		OutputStream out = httpExchange.getResponseBody();
+		out.write(body);
+		out.close();
+	}
+
+	private static String key(String method, String endpoint) {
+		return method.toUpperCase() + " " + endpoint;
+	}
+
+	// Usage: ReplayStubServer <recording file> <port> [latency scale]
+	public static void main(String[] args) throws IOException {
+		double scale = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+		new ReplayStubServer(TrafficLog.read(Paths.get(args[0])), scale).start(Integer.parseInt(args[1]));
+	}
+
+}
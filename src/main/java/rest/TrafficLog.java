@@ -0,0 +1,183 @@
+package rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only binary log of {@link RecordedExchange}s written through a
+ * memory-mapped file. Layout: a 4 byte magic followed by records of
+ * {@code [int length][payload]}; strings and bodies inside the payload are
+ * themselves length prefixed. The length is written after the payload, so a
+ * record cut short by a killed JVM still has the zero length of the unwritten
+ * file and marks the end of the log; the file stays readable up to the last
+ * full record.
+ */
+public class TrafficLog implements Closeable {
+
+	private static final int MAGIC = 0x52454331; // "REC1"
+	private static final int REGION_SIZE = 16 << 20;
+
+	private final FileChannel channel;
+	private MappedByteBuffer region;
+	private long regionStart;
+
+	public TrafficLog(Path file) throws IOException {
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		region = channel.map(FileChannel.MapMode.READ_WRITE, 0, REGION_SIZE);
+		region.putInt(MAGIC);
+	}
+
+	/**
+	 * This method appends one exchange to the log.
+	 * 
+	 * @param exchange - {@link RecordedExchange} to persist
+	 * @throws IOException
+	 */
+	public synchronized void append(RecordedExchange exchange) throws IOException {
+		byte[] record = encode(exchange);
+		ensureCapacity(4 + record.length);
+		// Reserve the length slot, write the payload, then publish the length
+		int slot = region.position();
+		region.position(slot + 4);
+		region.put(record);
+		region.putInt(slot, record.length);
+	}
+
+	// Trims the mapped tail so the file only holds written records
+	@Override
+	public synchronized void close() throws IOException {
+		long size = regionStart + region.position();
+		region.force();
+		channel.truncate(size);
+		channel.close();
+	}
+
+	/**
+	 * This method reads every complete exchange from a log file.
+	 * 
+	 * @param file - {@link Path} of a log written by {@link TrafficLog}
+	 * @return {@link List} of exchanges in recording order
+	 * @throws IOException
+	 */
+	public static List<RecordedExchange> read(Path file) throws IOException {
+		List<RecordedExchange> exchanges = new ArrayList<RecordedExchange>();
+		try (FileChannel readChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+			if (buffer.remaining() < 4 || buffer.getInt() != MAGIC) {
+				throw new IOException("Not a traffic recording: " + file);
+			}
+			while (buffer.remaining() >= 4) {
+				int length = buffer.getInt();
+				if (length <= 0 || length > buffer.remaining()) {
+					break;
+				}
+				ByteBuffer record = buffer.slice();
+				record.limit(length);
+				buffer.position(buffer.position() + length);
+				exchanges.add(decode(record));
+			}
+		}
+		return exchanges;
+	}
+
+	private void ensureCapacity(int bytes) throws IOException {
+		if (region.remaining() < bytes + 4) {
+			regionStart += region.position();
+			region.force();
+			region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, Math.max(REGION_SIZE, bytes + 4));
+		}
+	}
+
+	private static byte[] encode(RecordedExchange exchange) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + exchange.getResponseBody().length);
+		DataOutputStream out = new DataOutputStream(bytes);
+		writeString(out, exchange.getMethod());
+		writeString(out, exchange.getEndpoint());
+		writeHeaders(out, exchange.getRequestHeaders());
+		writeString(out, exchange.getRequestBody());
+		out.writeShort(exchange.getStatusCode());
+		writeHeaders(out, exchange.getResponseHeaders());
+		writeBytes(out, exchange.getResponseBody());
+		out.writeLong(exchange.getLatencyMillis());
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	private static RecordedExchange decode(ByteBuffer in) {
+		String method = readString(in);
+		String endpoint = readString(in);
+		List<Map.Entry<String, String>> requestHeaders = readHeaders(in);
+		String requestBody = readString(in);
+		int statusCode = in.getShort();
+		List<Map.Entry<String, String>> responseHeaders = readHeaders(in);
+		byte[] responseBody = readBytes(in);
+		long latencyMillis = in.getLong();
+		return new RecordedExchange(method, endpoint, requestHeaders, requestBody, statusCode, responseHeaders,
+				responseBody, latencyMillis);
+	}
+
+	private static void writeHeaders(DataOutputStream out, List<Map.Entry<String, String>> headers)
+			throws IOException {
+		out.writeShort(headers.size());
+		for (Map.Entry<String, String> header : headers) {
+			writeString(out, header.getKey());
+			writeString(out, header.getValue());
+		}
+	}
+
+	private static List<Map.Entry<String, String>> readHeaders(ByteBuffer in) {
+		int count = in.getShort();
+		List<Map.Entry<String, String>> headers = new ArrayList<Map.Entry<String, String>>(count);
+		for (int i = 0; i < count; i++) {
+			headers.add(new AbstractMap.SimpleImmutableEntry<String, String>(readString(in), readString(in)));
+		}
+		return headers;
+	}
+
+	// Null strings are written with length -1
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		writeBytes(out, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String readString(ByteBuffer in) {
+		byte[] bytes = readBytes(in);
+		return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(value.length);
+		out.write(value);
+	}
+
+	private static byte[] readBytes(ByteBuffer in) {
+		int length = in.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		return bytes;
+	}
+
+}
@@ -0,0 +1,122 @@
+package rest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import coreUtilities.utils.Log;
+import io.restassured.filter.FilterContext;
+import io.restassured.filter.OrderedFilter;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import restConfig.ConfigManager;
+
+/**
+ * Record and replay support for ApiUtil traffic, selected with traffic.mode:
+ * <ul>
+ * <li>off - requests go straight to the API (default)</li>
+ * <li>record - every exchange is appended to traffic.file</li>
+ * <li>replay - a local {@link ReplayStubServer} serves traffic.file and ApiUtil
+ * is pointed at it</li>
+ * </ul>
+ */
+public class TrafficRecorder implements OrderedFilter {
+
+	private static final String MODE = ConfigManager.getProperty("traffic.mode", "off");
+	private static final String FILE = ConfigManager.getProperty("traffic.file", "TestReport/api-traffic.rec");
+
+	private static TrafficLog log;
+	private static ReplayStubServer replayServer;
+
+	/**
+	 * This method returns the base URL ApiUtil should send requests to. In replay
+	 * mode it starts the stub server and returns its address with the original
+	 * base path; otherwise the given URL is returned unchanged.
+	 * 
+	 * @param baseUrl - {@link String} the real API base URL
+	 * @return {@link String}
+	 */
+	public static synchronized String resolveBaseUrl(String baseUrl) {
+		if (!"replay".equalsIgnoreCase(MODE)) {
+			return baseUrl;
+		}
+		try {
+			if (replayServer == null) {
+				replayServer = new ReplayStubServer(TrafficLog.read(Paths.get(FILE)),
+						Double.parseDouble(ConfigManager.getProperty("traffic.replay.latencyScale", "1.0")));
+				replayServer.start(0);
+			}
+			return "http://127.0.0.1:" + replayServer.getPort() + URI.create(baseUrl).getPath();
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to start replay from " + FILE, e);
+		}
+	}
+
+	// Method to check whether exchanges are being recorded in this run
+	public static boolean isRecording() {
+		return "record".equalsIgnoreCase(MODE);
+	}
+
+	@Override
+	public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+			FilterContext ctx) {
+		long start = System.nanoTime();
+		Response response = ctx.next(requestSpec, responseSpec);
+		long latencyMillis = (System.nanoTime() - start) / 1_000_000;
+		if (isRecording()) {
+			URI uri = URI.create(requestSpec.getURI());
+			String endpoint = uri.getRawPath() + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+			Object body = requestSpec.getBody();
+			RecordedExchange exchange = new RecordedExchange(requestSpec.getMethod(), endpoint,
+					toEntries(requestSpec.getHeaders()), body == null ? null : body.toString(),
+					response.statusCode(), toEntries(response.getHeaders()), response.asByteArray(), latencyMillis);
+			try {
+				getLog().append(exchange);
+			} catch (IOException e) {
+				Log.error("Unable to record " + endpoint + ": " + e);
+			}
+		}
+		return response;
+	}
+
+	// Closest to the wire so the recorded timing excludes the other filters
+	@Override
+	public int getOrder() {
+		return OrderedFilter.LOWEST_PRECEDENCE;
+	}
+
+	private static synchronized TrafficLog getLog() throws IOException {
+		if (log == null) {
+			log = new TrafficLog(Paths.get(FILE));
+			Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						log.close();
+					} catch (IOException e) {
+						Log.error("Unable to close traffic recording " + FILE + ": " + e);
+					}
+				}
+			}));
+		}
+		return log;
+	}
+
+	// Bearer tokens are never written to disk
+	private static List<Map.Entry<String, String>> toEntries(Headers headers) {
+		List<Map.Entry<String, String>> entries = new ArrayList<Map.Entry<String, String>>();
+		for (Header header : headers) {
+			String value = header.getName().equalsIgnoreCase("Authorization") ? "Bearer ***" : header.getValue();
+			entries.add(new AbstractMap.SimpleImmutableEntry<String, String>(header.getName(), value));
+		}
+		return entries;
+	}
+
+}
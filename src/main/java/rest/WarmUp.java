@@ -0,0 +1,109 @@
+package rest;
+
+import java.net.InetAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import coreUtilities.utils.Log;
+import restConfig.ConfigManager;
+
+/**
+ * Suite warm-up that takes DNS resolution, TLS handshakes, RestAssured/Groovy
+ * class loading and JIT compilation of the ApiUtil/JsonPath path off the first
+ * test. Cold and warm latencies are kept apart so they can be reported
+ * separately from the per-test timings.
+ */
+public class WarmUp {
+
+	private static long dnsMillis;
+	private static final List<Long> coldLatencies = Collections.synchronizedList(new ArrayList<Long>());
+	private static final List<Long> warmLatencies = Collections.synchronizedList(new ArrayList<Long>());
+
+	/**
+	 * This method runs the warm-up stage when warmup.enabled is set. Failures are
+	 * reported and swallowed so an unreachable host never blocks the suite.
+	 */
+	public static void run() {
+		if (!ConfigManager.getBooleanProperty("warmup.enabled", true)) {
+			return;
+		}
+		String endpoint = ConfigManager.getProperty("warmup.endpoint", "/PharmacySettings/MainStore");
+		int connections = ConfigManager.getIntProperty("warmup.connections", 5);
+		int iterations = ConfigManager.getIntProperty("warmup.iterations", 10);
+		try {
+			resolveHost(ConfigManager.getProperty("base.url", "https://healthapp.yaksha.com/api"));
+			primeConnections(endpoint, connections);
+			for (int i = 0; i < iterations; i++) {
+				warmLatencies.add(timedCall(endpoint));
+			}
+			printReport();
+		} catch (Exception e) {
+			Log.warn(() -> "Warm-up skipped: " + e);
+		}
+	}
+
+	// Method to get the latencies of the first call made on each pooled connection
+	public static List<Long> getColdLatencies() {
+		return Collections.unmodifiableList(new ArrayList<Long>(coldLatencies));
+	}
+
+	// Method to get the steady state latencies measured after priming
+	public static List<Long> getWarmLatencies() {
+		return Collections.unmodifiableList(new ArrayList<Long>(warmLatencies));
+	}
+
+	private static void resolveHost(String baseUrl) throws Exception {
+		long start = System.nanoTime();
+		InetAddress.getAllByName(new URL(baseUrl).getHost());
+		dnsMillis = (System.nanoTime() - start) / 1_000_000;
+	}
+
+	// Concurrent calls force the pool to open (and handshake) one connection each
+	private static void primeConnections(final String endpoint, int connections) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(connections);
+		try {
+			List<Future<Long>> calls = new ArrayList<Future<Long>>();
+			for (int i = 0; i < connections; i++) {
+				calls.add(executor.submit(new Callable<Long>() {
+					@Override
+					public Long call() {
+						return timedCall(endpoint);
+					}
+				}));
+			}
+			for (Future<Long> call : calls) {
+				coldLatencies.add(call.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static long timedCall(String endpoint) {
+		long start = System.nanoTime();
+		new ApiUtil().MainStoreDetailsWithAuth(endpoint, null);
+		return (System.nanoTime() - start) / 1_000_000;
+	}
+
+	private static void printReport() {
+		Log.info(() -> "Warm-up finished: DNS " + dnsMillis + " ms, cold calls " + describe(getColdLatencies())
+				+ ", warm calls " + describe(getWarmLatencies()));
+	}
+
+	private static String describe(List<Long> latencies) {
+		if (latencies.isEmpty()) {
+			return "n/a";
+		}
+		List<Long> sorted = new ArrayList<Long>(latencies);
+		Collections.sort(sorted);
+		return "p50 " + sorted.get(sorted.size() / 2) + " ms / max " + sorted.get(sorted.size() - 1) + " ms (n="
+				+ sorted.size() + ")";
+	}
+
+}
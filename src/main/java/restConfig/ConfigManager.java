@@ -19,4 +19,23 @@ public class ConfigManager {
 	public static String getProperty(String key) {
 		return props.getProperty(key);
 	}
+
+	// System properties win over config.properties so a run can be tuned from the
+	// command line; blank values fall back to the default
+	public static String getProperty(String key, String defaultValue) {
+		String value = System.getProperty(key, props.getProperty(key));
+		return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+	}
+
+	public static int getIntProperty(String key, int defaultValue) {
+		return Integer.parseInt(getProperty(key, String.valueOf(defaultValue)));
+	}
+
+	public static long getLongProperty(String key, long defaultValue) {
+		return Long.parseLong(getProperty(key, String.valueOf(defaultValue)));
+	}
+
+	public static boolean getBooleanProperty(String key, boolean defaultValue) {
+		return Boolean.parseBoolean(getProperty(key, String.valueOf(defaultValue)));
+	}
 }
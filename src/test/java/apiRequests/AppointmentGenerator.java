@@ -0,0 +1,297 @@
+package apiRequests;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Seeded, reproducible generator of appointment and department payloads for
+ * data-driven and load runs. Record i is the same for a given seed however the
+ * records are split across threads: the index space is cut into blocks of
+ * {@value #BLOCK} records, each block draws from its own
+ * {@link SplittableRandom} seeded from (seed, block), and parallel streams hand
+ * out whole blocks, so every worker owns its generator and nothing is shared.
+ * <p>
+ * Names, genders and types come from fixed pools and dates and times from
+ * precomputed slot strings, so a record costs a few draws and one contact
+ * number string. Slots are assigned round robin over the performers: a
+ * performer never gets two appointments at the same date and time until the
+ * {@value #HORIZON_DAYS} day horizon wraps around.
+ */
+public class AppointmentGenerator {
+
+	static final int BLOCK = 1024;
+	static final int HORIZON_DAYS = 365;
+	private static final int SLOTS_PER_DAY = 32;
+	private static final int SLOT_MINUTES = 15;
+	private static final int DAY_START_MINUTES = 9 * 60;
+	private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+	private static final int DEPARTMENT_CODES = 26 * 26 * 26 * 26 * 26;
+
+	private static final String[] FIRST_NAMES = { "Aarav", "Abhisek", "Aditi", "Ananya", "Arjun", "Divya", "Farhan",
+			"Gita", "Harish", "Isha", "Karan", "Kavya", "Manoj", "Meera", "Nikhil", "Pooja", "Priya", "Rahul",
+			"Rohan", "Sanjana", "Sneha", "Surya", "Tanvi", "Vikram" };
+	private static final String[] LAST_NAMES = { "Agarwal", "Bhat", "Chopra", "Das", "Gupta", "Iyer", "Joshi",
+			"Kapoor", "Khan", "Kumar", "Mehta", "Mishra", "Mohanta", "Nair", "Nayak", "Patel", "Rao", "Reddy",
+			"Sharma", "Singh", "Thakur", "Verma", "Yadav", "Zaidi" };
+	private static final String[] APPOINTMENT_TYPES = { "New", "Followup", "Referral" };
+	private static final String[] TIME_SLOTS = new String[SLOTS_PER_DAY];
+
+	static {
+		for (int i = 0; i < SLOTS_PER_DAY; i++) {
+			int minutes = DAY_START_MINUTES + i * SLOT_MINUTES;
+			TIME_SLOTS[i] = String.format("%02d:%02d:00", minutes / 60, minutes % 60);
+		}
+	}
+
+	private final long seed;
+	private final String[] performerNames;
+	private final int[] departmentIds;
+	private final String[] dates = new String[HORIZON_DAYS];
+	private final long departmentMultiplier;
+
+	/**
+	 * Generator for the performer and department of the AddAppointmentData
+	 * sheet.
+	 *
+	 * @param seed      - same seed and start date, same records
+	 * @param startDate - {@link LocalDate} of the first slot
+	 */
+	public AppointmentGenerator(long seed, LocalDate startDate) {
+		this(seed, startDate, new String[] { "Dr. pooja Mishra" }, new int[] { 11 });
+	}
+
+	/**
+	 * @param seed           - same seed and start date, same records
+	 * @param startDate      - {@link LocalDate} of the first slot
+	 * @param performerNames - {@link String}[] performers to book
+	 * @param departmentIds  - department of each performer, same order
+	 */
+	public AppointmentGenerator(long seed, LocalDate startDate, String[] performerNames, int[] departmentIds) {
+		if (performerNames.length == 0 || performerNames.length != departmentIds.length) {
+			throw new IllegalArgumentException("Need one department id per performer");
+		}
+		this.seed = seed;
+		this.performerNames = performerNames.clone();
+		this.departmentIds = departmentIds.clone();
+		for (int i = 0; i < HORIZON_DAYS; i++) {
+			dates[i] = startDate.plusDays(i) + "T00:00:00";
+		}
+		// Odd and not a multiple of 13, so a bijection over the 26^5 codes
+		long multiplier = (mix(seed) & 0x7FFFFFFFL) % DEPARTMENT_CODES | 1;
+		while (multiplier % 13 == 0) {
+			multiplier += 2;
+		}
+		this.departmentMultiplier = multiplier;
+	}
+
+	/**
+	 * This method returns one record. Meant for single lookups, it replays up to
+	 * one block of draws; use {@link #stream} or {@link #forEach} for volume.
+	 *
+	 * @param index - record number, from 0
+	 * @return {@link AppointmentRequest}
+	 */
+	public AppointmentRequest get(long index) {
+		SplittableRandom random = blockRandom(index / BLOCK);
+		AppointmentRequest request = new AppointmentRequest();
+		for (long i = index - index % BLOCK; i <= index; i++) {
+			fill(i, random, request);
+		}
+		return request;
+	}
+
+	/**
+	 * This method hands records to a consumer on the calling thread, reusing one
+	 * {@link AppointmentRequest}; the consumer must not keep it.
+	 *
+	 * @param from     - first record number
+	 * @param count    - number of records
+	 * @param consumer - {@link Consumer} called once per record
+	 */
+	public void forEach(long from, long count, Consumer<AppointmentRequest> consumer) {
+		AppointmentRequest request = new AppointmentRequest();
+		Records records = new Records(from, from + count);
+		while (records.next(request)) {
+			consumer.accept(request);
+		}
+	}
+
+	/**
+	 * This method streams records without storing them; a parallel stream splits
+	 * on block boundaries and yields the same records as a sequential one.
+	 *
+	 * @param from  - first record number
+	 * @param count - number of records
+	 * @return {@link Stream} of new {@link AppointmentRequest} per record
+	 */
+	public Stream<AppointmentRequest> stream(long from, long count) {
+		return StreamSupport.stream(new Records(from, from + count), false);
+	}
+
+	/**
+	 * This method feeds a TestNG DataProvider lazily, one record per invocation.
+	 *
+	 * @param count - number of records
+	 * @return {@link Iterator} of single element arrays holding an
+	 *         {@link AppointmentRequest}
+	 */
+	public Iterator<Object[]> dataProvider(long count) {
+		return stream(0, count).map(request -> new Object[] { request }).iterator();
+	}
+
+	/**
+	 * This method returns a department code unique for the first 26^5 records.
+	 *
+	 * @param index - record number, from 0
+	 * @return {@link String} of five capital letters
+	 */
+	public String departmentCode(long index) {
+		long code = Math.floorMod(index * departmentMultiplier + mix(seed), (long) DEPARTMENT_CODES);
+		char[] letters = new char[5];
+		for (int i = 4; i >= 0; i--) {
+			letters[i] = (char) ('A' + code % 26);
+			code /= 26;
+		}
+		return new String(letters);
+	}
+
+	/**
+	 * This method appends the /Settings/Department payload of one record.
+	 *
+	 * @param index - record number, from 0
+	 * @param json  - {@link StringBuilder} to append to
+	 * @return json
+	 */
+	public StringBuilder appendDepartmentJson(long index, StringBuilder json) {
+		String code = departmentCode(index);
+		return json.append("{ \"DepartmentCode\": \"").append(code).append("\", \"DepartmentName\": \"Department ")
+				.append(code).append("\" }");
+	}
+
+	/**
+	 * This method appends the /Appointment/AddAppointment payload of a request.
+	 *
+	 * @param request - {@link AppointmentRequest}
+	 * @param json    - {@link StringBuilder} to append to
+	 * @return json
+	 */
+	public static StringBuilder appendJson(AppointmentRequest request, StringBuilder json) {
+		return json.append("{ \"FirstName\": \"").append(request.getFirstName()).append("\", \"LastName\": \"")
+				.append(request.getLastName()).append("\", \"Gender\": \"").append(request.getGender())
+				.append("\", \"Age\": \"").append(request.getAge()).append("\", \"ContactNumber\": \"")
+				.append(request.getContactNumber()).append("\", \"AppointmentDate\": \"")
+				.append(request.getAppointmentDate()).append("\", \"AppointmentTime\": \"")
+				.append(request.getAppointmentTime()).append("\", \"PerformerName\": \"")
+				.append(request.getPerformerName()).append("\", \"AppointmentType\": \"")
+				.append(request.getAppointmentType()).append("\", \"DepartmentId\": ")
+				.append(request.getDepartmentId()).append(" }");
+	}
+
+	// Records of a block draw in order, so a block can be replayed from its start
+	private void fill(long index, SplittableRandom random, AppointmentRequest request) {
+		request.setFirstName(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+		request.setLastName(LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+		int gender = random.nextInt(100);
+		request.setGender(gender < 49 ? "Male" : gender < 98 ? "Female" : "Other");
+		request.setAge(1 + random.nextInt(95));
+		request.setContactNumber(contactNumber(random.nextInt(3), random.nextLong(1_000_000_000L)));
+		request.setAppointmentType(APPOINTMENT_TYPES[random.nextInt(100) < 70 ? 0 : random.nextInt(1, 3)]);
+
+		int performer = (int) (index % performerNames.length);
+		long slot = index / performerNames.length;
+		request.setPerformerName(performerNames[performer]);
+		request.setDepartmentId(departmentIds[performer]);
+		request.setAppointmentTime(TIME_SLOTS[(int) (slot % SLOTS_PER_DAY)]);
+		request.setAppointmentDate(dates[(int) (slot / SLOTS_PER_DAY % HORIZON_DAYS)]);
+	}
+
+	// Ten digits starting with 7, 8 or 9
+	private static String contactNumber(int prefix, long rest) {
+		char[] digits = new char[10];
+		digits[0] = (char) ('7' + prefix);
+		for (int i = 9; i > 0; i--) {
+			digits[i] = (char) ('0' + rest % 10);
+			rest /= 10;
+		}
+		return new String(digits);
+	}
+
+	private SplittableRandom blockRandom(long block) {
+		return new SplittableRandom(mix(seed + block * GOLDEN));
+	}
+
+	// SplitMix64 finalizer, spreads neighbouring seeds apart
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	// Range of records with the generator of the current block
+	private final class Records implements Spliterator<AppointmentRequest> {
+
+		private long next;
+		private final long end;
+		private SplittableRandom random;
+
+		Records(long from, long end) {
+			this.next = from;
+			this.end = end;
+		}
+
+		boolean next(AppointmentRequest request) {
+			if (next >= end) {
+				return false;
+			}
+			if (random == null || next % BLOCK == 0) {
+				random = blockRandom(next / BLOCK);
+				// A range starting inside a block replays the records before it
+				for (long i = next - next % BLOCK; i < next; i++) {
+					fill(i, random, request);
+				}
+			}
+			fill(next++, random, request);
+			return true;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super AppointmentRequest> action) {
+			AppointmentRequest request = new AppointmentRequest();
+			if (!next(request)) {
+				return false;
+			}
+			action.accept(request);
+			return true;
+		}
+
+		@Override
+		public Spliterator<AppointmentRequest> trySplit() {
+			// Split on a block boundary so both halves seed their own blocks
+			long middle = (next + (end - next) / 2) / BLOCK * BLOCK;
+			if (middle <= next || middle >= end) {
+				return null;
+			}
+			Records prefix = new Records(next, middle);
+			prefix.random = random;
+			next = middle;
+			random = null;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return end - next;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+		}
+	}
+
+}
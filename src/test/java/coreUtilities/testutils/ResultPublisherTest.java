@@ -0,0 +1,62 @@
+package coreUtilities.testutils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Runs {@link ResultPublisher} against a local {@link ResultReceiverStub}: a 503
+ * is retried, a result the receiver cannot take is spilled, and the spill file
+ * is replayed once the receiver is back. The publisher reads its settings when
+ * it is first used, so they are set before that.
+ */
+public class ResultPublisherTest {
+
+	private final File spillFile = new File("target/result-publisher-test/unpublished-results.jsonl");
+	private ResultReceiverStub stub;
+
+	@BeforeClass
+	public void startReceiver() throws Exception {
+		Files.deleteIfExists(spillFile.toPath());
+		stub = new ResultReceiverStub(0, 2);
+		stub.start();
+		System.setProperty("results.url", stub.getUrl());
+		System.setProperty("results.spill.file", spillFile.getPath());
+		System.setProperty("results.retry.attempts", "3");
+		System.setProperty("results.retry.backoffMillis", "10");
+	}
+
+	@AfterClass(alwaysRun = true)
+	public void stopReceiver() {
+		stub.stop();
+	}
+
+	@Test
+	public void retriesUnavailableThenSpillsAndReplays() throws Exception {
+		// Two 503 answers, the third attempt is accepted
+		ResultPublisher.publish("{\"test\":\"first\"}", 0);
+		Assert.assertTrue(ResultPublisher.flush(10000), "first result still pending");
+		Assert.assertEquals(stub.getReceived(), Collections.singletonList("{\"test\":\"first\"}"));
+		Assert.assertFalse(spillFile.exists(), "a retried result was spilled");
+
+		// Receiver down, every connect fails
+		stub.stop();
+		ResultPublisher.publish("{\"test\":\"second\"}", 0);
+		Assert.assertTrue(ResultPublisher.flush(10000), "second result still pending");
+		Assert.assertEquals(Files.readAllLines(spillFile.toPath(), StandardCharsets.UTF_8),
+				Collections.singletonList("{\"test\":\"second\"}"));
+
+		stub.start();
+		Assert.assertEquals(ResultPublisher.replay(10000), 1);
+		Assert.assertEquals(stub.getReceived(), Arrays.asList("{\"test\":\"first\"}", "{\"test\":\"second\"}"));
+		Assert.assertFalse(spillFile.exists(), "replayed result left in the spill file");
+	}
+
+}
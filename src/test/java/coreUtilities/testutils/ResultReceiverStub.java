@@ -0,0 +1,86 @@
+package coreUtilities.testutils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the results endpoint. Point results.url at
+ * {@link #getUrl()} to exercise {@link ResultPublisher} without the network;
+ * the stub can delay every answer and fail the first requests with 503 to
+ * simulate a slow or flaky receiver. Started again after {@link #stop()} it
+ * listens on the same port, so a publisher configured with its URL sees an
+ * outage and a recovery.
+ */
+public class ResultReceiverStub implements HttpHandler {
+
+	private final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+	private final long delayMillis;
+	private int failuresLeft;
+	private HttpServer server;
+	private int port;
+
+	public ResultReceiverStub(long delayMillis, int failFirst) {
+		this.delayMillis = delayMillis;
+		this.failuresLeft = failFirst;
+	}
+
+	public void start() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/", this);
+		server.start();
+		port = server.getAddress().getPort();
+	}
+
+	public void stop() {
+		server.stop(0);
+	}
+
+	public String getUrl() {
+		return "http://127.0.0.1:" + port + "/v1/mfa-results/push";
+	}
+
+	// Method to get every payload accepted so far
+	public List<String> getReceived() {
+		return new ArrayList<String>(received);
+	}
+
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		InputStream in = exchange.getRequestBody();
+		byte[] buffer = new byte[1024];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			body.write(buffer, 0, read);
+		}
+		try {
+			Thread.sleep(delayMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		boolean fail;
+		synchronized (this) {
+			fail = failuresLeft > 0;
+			if (fail) {
+				failuresLeft--;
+			}
+		}
+		if (!fail) {
+			received.add(new String(body.toByteArray(), StandardCharsets.UTF_8));
+		}
+		exchange.sendResponseHeaders(fail ? 503 : 200, -1);
+		exchange.close();
+	}
+
+}
@@ -1,14 +1,29 @@
 package testcases;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 
 import org.testng.Assert;
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import apiRequests.AppointmentGenerator;
+import apiRequests.AppointmentRequest;
+import coreUtilities.testutils.LatencyBudget;
+import coreUtilities.utils.ExcelRow;
 import coreUtilities.utils.FileOperations;
+import coreUtilities.utils.ResponseBaseline;
 import rest.ApiUtil;
 import rest.CustomResponse;
+import restConfig.ConfigManager;
 
 public class RestAssured_TestCases_PL2 {
 
@@ -20,6 +35,16 @@ public class RestAssured_TestCases_PL2 {
 
 	public static int appointmentId;
 
+	// ApiUtil methods that must be implemented with Rest Assured calls only
+	private static final List<String> REST_ASSURED_KEYWORDS = List.of("given", "then", "extract", "response");
+
+	@BeforeSuite(alwaysRun = true)
+	public void prevalidateSources() {
+		// Parse ApiUtil once and run its source checks in parallel, the tests read the results
+		TestCodeValidator.prevalidate(FILEPATH, Map.of("createAppointmentWithAuth", REST_ASSURED_KEYWORDS,
+				"cancelAppointmentWithAuth", REST_ASSURED_KEYWORDS));
+	}
+
 	@Test(priority = 1, groups = { "PL2" }, description = "Precondition: Create an appointment via the API\n"
 			+ "1. Send POST request to create a new appointment with provided data\n"
 			+ "2. Verify the response status code is 200 OK\n" + "3. Validate the response contains 'Status' as 'OK'\n"
@@ -61,10 +86,6 @@ public class RestAssured_TestCases_PL2 {
 		Integer appointmentIdd = customResponse.getAppointmentId();
 		appointmentId = appointmentIdd; 
 		Assert.assertNotNull(appointmentIdd, "Appointment ID should not be null.");
-
-		// Print the full response body for debugging
-		System.out.println("Create Appointment Response:");
-		customResponse.getResponse().prettyPrint();
 	}
 
 	@Test(priority = 2, groups = {
@@ -94,20 +115,16 @@ public class RestAssured_TestCases_PL2 {
 
 		// Validate the top-level status field
 		String status = cancelResponse.getStatus();
-		System.out.println(cancelResponse.getStatus());
-		System.out.println("cancelResponse.getStatus()--------------------");
 		Assert.assertEquals(status, "OK", "Status should be OK.");
 
 		// Validate the Results field for success message
 		String resultMessage = cancelResponse.getResultMessage();
 		Assert.assertEquals(resultMessage, "Appointment information updated successfully.",
 				"Message should confirm the update.");
-
-		// Print the full response for debugging
-		System.out.println("Cancelled Appointment Response:");
-		cancelResponse.getResponse().prettyPrint();
 	}
 
+	// One search per run, so a per-call maximum rather than a tail percentile
+	@LatencyBudget(endpoint = "/Patient/SearchRegisteredPatient", percentile = 100, maxMillis = 2000, minSamples = 1)
 	@Test(priority = 3, groups = {
 			"PL2" }, description = "Precondition: Patients and Doctor must be created successfully.\n"
 					+ "1. Send a GET request to fetch whether an appointment for the same time is created for the same doctor.\n"
@@ -140,10 +157,6 @@ public class RestAssured_TestCases_PL2 {
 		// Validate the 'Status' field
 		String status = searchedResponse.getStatus();
 		Assert.assertEquals(status, "OK", "Status should be OK.");
-
-		// Print the full response for further verification if needed
-		System.out.println("Searched Patient Response:");
-		searchedResponse.getResponse().prettyPrint();
 	}
 
 	@Test(priority = 4, groups = {
@@ -196,10 +209,6 @@ public class RestAssured_TestCases_PL2 {
 		// Validate the 'Status' field
 		String status = updateResponse.getStatus();
 		Assert.assertEquals(status, "OK", "Status should be OK.");
-
-		// Print the full response for further verification if needed
-		System.out.println("Searched appointment Response Within a Range:");
-		updateResponse.getResponse().prettyPrint();
 	}
 
 	@Test(priority = 5, groups = {
@@ -232,10 +241,6 @@ public class RestAssured_TestCases_PL2 {
 		// Validate the 'Status' field
 		String status = stockDetails.getStatus();
 		Assert.assertEquals(status, "OK", "Status should be OK.");
-
-		// Print the full response for further verification if needed
-		System.out.println("Fetched Main Store from the Pharmacy Settings:");
-		stockDetails.getResponse().prettyPrint();
 	}
 
 	@Test(priority = 6, groups = {
@@ -272,10 +277,6 @@ public class RestAssured_TestCases_PL2 {
 		// Validate the 'Status' field
 		String status = pharmacyStoreResponse.getStatus();
 		Assert.assertEquals(status, "OK", "Status should be OK.");
-
-		// Print the full response for further verification if needed
-		System.out.println("The following are the Pharmacy Stores:");
-		pharmacyStoreResponse.getResponse().prettyPrint();
 	}
 
 	@Test(priority = 7, groups = {
@@ -315,10 +316,6 @@ public class RestAssured_TestCases_PL2 {
 		// Validate the 'Status' field
 		String status = activationResponse.getStatus();
 		Assert.assertEquals(status, "OK", "Status should be OK.");
-
-		// Print the full response for further verification if needed
-		System.out.println("Activated the pharmacy counter, Response :");
-		activationResponse.getResponse().prettyPrint();
 	}
 
 	@Test(priority = 8, groups = {
@@ -349,10 +346,6 @@ public class RestAssured_TestCases_PL2 {
 		// Validate the 'Status' field
 		String status = consumptionResponse.getStatus();
 		Assert.assertEquals(status, "OK", "Status should be OK.");
-
-		// Print the full response for further verification if needed
-		System.out.println("Deactivated pharmacy counter: Response");
-		consumptionResponse.getResponse().prettyPrint();
 	}
 
 	@Test(priority = 9, groups = {
@@ -389,10 +382,6 @@ public class RestAssured_TestCases_PL2 {
 		// Validate the 'Status' field
 		String status = appointResponse.getStatus();
 		Assert.assertEquals(status, "OK", "Status should be OK.");
-
-		// Print the full response for further verification if needed
-		System.out.println("The following is the list of Appointment Applicable Departments, Response:");
-		appointResponse.getResponse().prettyPrint();
 	}
 
 	@Test(priority = 10, groups = {
@@ -434,10 +423,6 @@ public class RestAssured_TestCases_PL2 {
 		// Validate the 'Status' field
 		String status = admittedPatientResponse.getStatus();
 		Assert.assertEquals(status, "OK", "Status should be OK.");
-
-		// Print the full response for further verification if needed
-		System.out.println("The following is the list of Admitted Patients Data, Response:");
-		admittedPatientResponse.getResponse().prettyPrint();
 	}
 
 	@Test(priority = 11, groups = { "PL2" }, description = "1. Send a GET request to fetch profile details.\n"
@@ -485,10 +470,6 @@ public class RestAssured_TestCases_PL2 {
 		Assert.assertEquals(actualEmailAddress, expectedEmailAddress,
 				"The email address does not match with expected data.");
 		Assert.assertEquals(actualUserName, expectedUserName, "The Username does not match with expected data.");
-
-		// Print the full response for further verification if needed
-		System.out.println("The following is the response of profile details, Response:");
-		profileDetailsWithIdResponse.getResponse().prettyPrint();
 	}
 
 	@Test(priority = 12, groups = {
@@ -537,10 +518,6 @@ public class RestAssured_TestCases_PL2 {
 		// Assert that the 'DepartmentName' matches the expected name
 		Assert.assertEquals(actualDepartmentName, expectedDepartmentName,
 				"The Department Name does not match with the expected data.");
-
-		// Print the full response for further verification if needed
-		System.out.println("The following is the response after adding the department, Response:");
-		addANewDepartmentResponse.getResponse().prettyPrint();
 	}
 
 	@Test(priority = 13, groups = { "PL2" }, description = "1. Send a GET request to get the list of departments.\n"
@@ -579,9 +556,8 @@ public class RestAssured_TestCases_PL2 {
 		String status = departmentsListResponse.getStatus();
 		Assert.assertEquals(status, "OK", "Status should be OK.");
 
-		// Print the full response for further verification if needed
-		System.out.println("The following is the list of Departments, Response:");
-		departmentsListResponse.getResponse().prettyPrint();
+		// Report data or contract drift against the recorded baseline
+		ResponseBaseline.report("Settings_Departments", departmentsListResponse.getResponse().asString());
 	}
 
 	@Test(priority = 14, groups = { "PL2" }, description = "1. Send a PUT request to edit the department details.\n"
@@ -677,10 +653,6 @@ public class RestAssured_TestCases_PL2 {
 
 		String status = editDepartmentResponse.getStatus();
 		Assert.assertEquals(status, "OK", "Status should be OK.");
-
-		// Print the full response for further verification if needed
-		System.out.println("The following is the Data of Department, Response:");
-		editDepartmentResponse.getResponse().prettyPrint();
 	}
 
 	@Test(priority = 15, groups = { "PL2" }, description = "1. Send a GET request to get imaging types.\n"
@@ -715,9 +687,8 @@ public class RestAssured_TestCases_PL2 {
 		String status = imagingTypesResponse.getStatus();
 		Assert.assertEquals(status, "OK", "Status should be OK.");
 
-		// Print the full response for further verification if needed
-		System.out.println("The following is the list of Imaging Types, Response:");
-		imagingTypesResponse.getResponse().prettyPrint();
+		// Report data or contract drift against the recorded baseline
+		ResponseBaseline.report("RadiologySettings_ImagingTypes", imagingTypesResponse.getResponse().asString());
 	}
 
 	@Test(priority = 16, groups = { "PL2" }, description = "1. Send a GET request to get signatories by department.\n"
@@ -756,10 +727,128 @@ public class RestAssured_TestCases_PL2 {
 		// Validate the 'Status' field
 		String status = signDetailsFromDeptResponse.getStatus();
 		Assert.assertEquals(status, "OK", "Status should be OK.");
+	}
+
+	// One appointment scenario per row of AddAppointmentRows, run in parallel
+	@DataProvider(name = "appointmentRows", parallel = true)
+	public Object[][] appointmentRows() throws Exception {
+		return fileOperations.readExcelRows(EXCEL_FILE_PATH, "AddAppointmentRows");
+	}
+
+	// One department edit per row of EditDepartmentRows, run in parallel
+	@DataProvider(name = "departmentRows", parallel = true)
+	public Object[][] departmentRows() throws Exception {
+		return fileOperations.readExcelRows(EXCEL_FILE_PATH, "EditDepartmentRows");
+	}
+
+	// Generated appointments, data.generator.count of them from data.generator.seed and startDate
+	@DataProvider(name = "generatedAppointments", parallel = true)
+	public Iterator<Object[]> generatedAppointments() {
+		String startDate = ConfigManager.getProperty("data.generator.startDate", "").trim();
+		LocalDate start = startDate.isEmpty() ? LocalDate.now().plusDays(1) : LocalDate.parse(startDate);
+		long seed = ConfigManager.getLongProperty("data.generator.seed", 1L);
+		long count = ConfigManager.getLongProperty("data.generator.count", 0L);
+		System.out.println("Generated appointments: seed " + seed + ", start date " + start);
+		return new AppointmentGenerator(seed, start).dataProvider(count);
+	}
+
+	@Test(priority = 17, groups = {
+			"PL2-DataDriven" }, dataProvider = "appointmentRows", description = "Runs once per row of AddAppointmentRows.\n"
+					+ "1. Send POST request to create an appointment with the row data.\n"
+					+ "2. Verify the response status code is 200 OK and 'Status' is 'OK'.\n"
+					+ "3. Cancel the created appointment so rows do not clash with each other.")
+	public void createAppointmentRowTest(ExcelRow row) throws Exception {
+		Map<String, String> postData = row.toMap();
+
+		// Construct the JSON payload as a string
+		String requestBody = "{ " + "\"FirstName\": \"" + postData.get("FirstName") + "\", " + "\"LastName\": \""
+				+ postData.get("LastName") + "\", " + "\"Gender\": \"" + postData.get("Gender") + "\", " + "\"Age\": \""
+				+ postData.get("Age") + "\", " + "\"ContactNumber\": \"" + postData.get("ContactNumber") + "\", "
+				+ "\"AppointmentDate\": \"" + postData.get("AppointmentDate") + "\", " + "\"AppointmentTime\": \""
+				+ postData.get("AppointmentTime") + "\", " + "\"PerformerName\": \"" + postData.get("PerformerName")
+				+ "\", " + "\"AppointmentType\": \"" + postData.get("AppointmentType") + "\", " + "\"DepartmentId\": "
+				+ postData.get("DepartmentId") + " }";
+
+		ApiUtil rowApiUtil = new ApiUtil();
+		CustomResponse customResponse = rowApiUtil.createAppointmentWithAuth("/Appointment/AddAppointment",
+				requestBody);
+
+		// Validate the status code and the top-level status field
+		Assert.assertEquals(customResponse.getStatusCode(), 200, "Status code should be 200 for " + row);
+		Assert.assertEquals(customResponse.getStatus(), "OK", "Status should be OK for " + row);
+
+		// The appointment id is local to the row, the shared appointmentId belongs
+		// to createAppointmentTest
+		Integer rowAppointmentId = customResponse.getAppointmentId();
+		Assert.assertNotNull(rowAppointmentId, "Appointment ID should not be null for " + row);
+
+		CustomResponse cancelResponse = rowApiUtil.cancelAppointmentWithAuth(
+				"/Appointment/AppointmentStatus?appointmentId=" + rowAppointmentId + "&status=cancelled", null);
+		Assert.assertEquals(cancelResponse.getStatusCode(), 200, "Cancel status code should be 200 for " + row);
+	}
+
+	@Test(priority = 18, groups = {
+			"PL2-DataDriven" }, dataProvider = "departmentRows", description = "Runs once per row of EditDepartmentRows.\n"
+					+ "1. Send a PUT request to edit the department with the row data.\n"
+					+ "2. Verify the response status code is 200 and 'Status' is 'OK'.\n"
+					+ "3. Verify the department code and name in the response match the row.")
+	public void editDepartmentRowTest(ExcelRow row) throws Exception {
+		Map<String, String> body = row.toMap();
+		String departmentCode = body.get("DepartmentCode");
+		String departmentName = body.get("DepartmentName");
+
+		// Construct the JSON payload as a string, columns missing in the row are sent
+		// as null
+		String requestBody = "{ " + "\"DepartmentId\": " + body.get("DepartmentId") + ", " + "\"DepartmentCode\": \""
+				+ departmentCode + "\", " + "\"DepartmentName\": \"" + departmentName + "\", " + "\"Description\": "
+				+ quoted(body.get("Description")) + ", " + "\"NoticeText\": " + quoted(body.get("NoticeText")) + ", "
+				+ "\"DepartmentHead\": " + body.get("DepartmentHead") + ", " + "\"IsActive\": "
+				+ Boolean.parseBoolean(body.get("IsActive")) + ", " + "\"IsAppointmentApplicable\": "
+				+ Boolean.parseBoolean(body.get("IsAppointmentApplicable")) + ", " + "\"CreatedBy\": "
+				+ body.get("CreatedBy") + ", " + "\"ModifiedBy\": " + body.get("ModifiedBy") + ", "
+				+ "\"ParentDepartmentId\": " + body.get("ParentDepartmentId") + ", " + "\"RoomNumber\": "
+				+ quoted(body.get("RoomNumber")) + ", " + "\"IsZeroPriceAllowed\": "
+				+ Boolean.parseBoolean(body.get("IsZeroPriceAllowed")) + " }";
+
+		CustomResponse editDepartmentResponse = new ApiUtil().editDepartmentDetails("/Settings/Department",
+				requestBody);
+
+		// Assert that the status code is 200 OK
+		Assert.assertEquals(editDepartmentResponse.getStatusCode(), 200, "Status code should be 200 OK for " + row);
+		Assert.assertEquals(editDepartmentResponse.getStatus(), "OK", "Status should be OK for " + row);
+
+		// Verify the response carries the values sent for this row
+		Map<String, Object> results = editDepartmentResponse.getMapResults();
+		Assert.assertEquals(results.get("DepartmentCode"), departmentCode);
+		Assert.assertEquals(results.get("DepartmentName"), departmentName);
+	}
+
+	@Test(priority = 19, groups = {
+			"PL2-DataDriven" }, dataProvider = "generatedAppointments", description = "Runs once per generated appointment.\n"
+					+ "1. Send POST request to create the generated appointment.\n"
+					+ "2. Verify the response status code is 200 OK and 'Status' is 'OK'.\n"
+					+ "3. Cancel the created appointment.")
+	public void createGeneratedAppointmentTest(AppointmentRequest request) throws Exception {
+		String requestBody = AppointmentGenerator.appendJson(request, new StringBuilder(256)).toString();
+
+		ApiUtil rowApiUtil = new ApiUtil();
+		CustomResponse customResponse = rowApiUtil.createAppointmentWithAuth("/Appointment/AddAppointment",
+				requestBody);
+
+		// Validate the status code and the top-level status field
+		Assert.assertEquals(customResponse.getStatusCode(), 200, "Status code should be 200 for " + requestBody);
+		Assert.assertEquals(customResponse.getStatus(), "OK", "Status should be OK for " + requestBody);
+
+		Integer generatedAppointmentId = customResponse.getAppointmentId();
+		Assert.assertNotNull(generatedAppointmentId, "Appointment ID should not be null for " + requestBody);
+
+		CustomResponse cancelResponse = rowApiUtil.cancelAppointmentWithAuth(
+				"/Appointment/AppointmentStatus?appointmentId=" + generatedAppointmentId + "&status=cancelled", null);
+		Assert.assertEquals(cancelResponse.getStatusCode(), 200, "Cancel status code should be 200.");
+	}
 
-		// Print the full response for further verification if needed
-		System.out.println("The following are the details of Signatories, Response:");
-		signDetailsFromDeptResponse.getResponse().prettyPrint();
+	private static String quoted(String value) {
+		return value != null ? "\"" + value + "\"" : null;
 	}
 
 }
@@ -0,0 +1,145 @@
+package testcases;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreeScanner;
+import com.sun.source.util.Trees;
+
+/**
+ * Method name to method body index of a Java source file, built with the javac
+ * parser so braces in strings, comments and lambdas cannot cut a body short.
+ * Indexes are cached by the SHA-256 of the file content; the file is only
+ * hashed again when its modification time or size changes.
+ */
+final class SourceIndex {
+
+	private static final ConcurrentMap<String, SourceIndex> byPath = new ConcurrentHashMap<String, SourceIndex>();
+	private static final ConcurrentMap<String, SourceIndex> byHash = new ConcurrentHashMap<String, SourceIndex>();
+	private static final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<String, Object>();
+
+	private final String hash;
+	private final long lastModified;
+	private final long length;
+	private final Map<String, String> bodies;
+
+	private SourceIndex(String hash, long lastModified, long length, Map<String, String> bodies) {
+		this.hash = hash;
+		this.lastModified = lastModified;
+		this.length = length;
+		this.bodies = bodies;
+	}
+
+	/**
+	 * This method returns the index of a source file, parsing it only when its
+	 * content changed.
+	 *
+	 * @param filePath - {@link String} .java file location
+	 * @return {@link SourceIndex}
+	 * @throws IOException when the file cannot be read
+	 */
+	static SourceIndex of(String filePath) throws IOException {
+		File file = new File(filePath).getCanonicalFile();
+		long lastModified = file.lastModified();
+		long length = file.length();
+		SourceIndex index = byPath.get(file.getPath());
+		if (index != null && index.lastModified == lastModified && index.length == length) {
+			return index;
+		}
+		synchronized (locks.computeIfAbsent(file.getPath(), k -> new Object())) {
+			index = byPath.get(file.getPath());
+			if (index == null || index.lastModified != lastModified || index.length != length) {
+				byte[] content = Files.readAllBytes(file.toPath());
+				String hash = sha256(content);
+				SourceIndex parsed = byHash.get(hash);
+				Map<String, String> bodies = parsed != null ? parsed.bodies
+						: parse(file.getName(), new String(content, StandardCharsets.UTF_8));
+				index = new SourceIndex(hash, lastModified, length, bodies);
+				byHash.put(hash, index);
+				byPath.put(file.getPath(), index);
+			}
+		}
+		return index;
+	}
+
+	// Content hash, used to key results derived from this version of the file
+	String getHash() {
+		return hash;
+	}
+
+	/**
+	 * @param methodName - {@link String} method name, the first declaration wins
+	 *                   for overloads
+	 * @return {@link String} method body including its braces, null when absent
+	 */
+	String body(String methodName) {
+		return bodies.get(methodName);
+	}
+
+	private static Map<String, String> parse(String name, final String source) throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new IllegalStateException("Source validation needs a JDK, not a JRE");
+		}
+		JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + name), JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return source;
+			}
+		};
+		// Parse only; unresolved imports and syntax errors elsewhere do not matter
+		JavacTask task = (JavacTask) compiler.getTask(null, null, diagnostic -> {
+		}, List.of("-proc:none"), null, List.of(file));
+		final SourcePositions positions = Trees.instance(task).getSourcePositions();
+		final Map<String, String> bodies = new LinkedHashMap<String, String>();
+		for (final CompilationUnitTree unit : task.parse()) {
+			new TreeScanner<Void, Void>() {
+				@Override
+				public Void visitMethod(MethodTree method, Void unused) {
+					if (method.getBody() != null) {
+						int start = (int) positions.getStartPosition(unit, method.getBody());
+						int end = (int) positions.getEndPosition(unit, method.getBody());
+						if (start >= 0 && end > start) {
+							bodies.putIfAbsent(method.getName().toString(), source.substring(start, end));
+						}
+					}
+					return super.visitMethod(method, unused);
+				}
+			}.scan(unit, null);
+		}
+		return Collections.unmodifiableMap(bodies);
+	}
+
+	private static String sha256(byte[] content) {
+		try {
+			StringBuilder hex = new StringBuilder(64);
+			for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
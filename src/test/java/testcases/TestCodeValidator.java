@@ -1,102 +1,127 @@
 package testcases;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
+import coreUtilities.profiling.CodeValidationEvent;
 import rest.CustomResponse;
 
 public class TestCodeValidator {
 
+	// Keyword call patterns, compiled once per keyword
+	private static final ConcurrentMap<String, Pattern> keywordPatterns = new ConcurrentHashMap<String, Pattern>();
+	// Source check results, keyed by file content hash, method and keywords
+	private static final ConcurrentMap<String, SourceCheck> sourceChecks = new ConcurrentHashMap<String, SourceCheck>();
+
 	// Method to validate if specific keywords are used in the method's source code
 	public static boolean validateTestMethodFromFile(String filePath, String methodName, List<String> keywords)
 			throws IOException {
-		// Read the content of the test class file
-		String fileContent = new String(Files.readAllBytes(Paths.get(filePath)));
-
-		// Extract the method body for the specified method using regex
-		String methodRegex = "(public\\s+CustomResponse\\s+" + methodName + "\\s*\\(.*?\\)\\s*\\{)([\\s\\S]*?)}";
-		Pattern methodPattern = Pattern.compile(methodRegex);
-		Matcher methodMatcher = methodPattern.matcher(fileContent);
+		CodeValidationEvent event = new CodeValidationEvent();
+		event.begin();
+
+		// Served from the suite start prevalidation unless the file changed since
+		SourceCheck check;
+		try {
+			check = check(SourceIndex.of(filePath), methodName, keywords);
+		} catch (IOException | RuntimeException e) {
+			// e.g. unreadable file or no JDK to parse it; fails this check only
+			System.out.println("Source of " + methodName + " could not be checked: " + e);
+			return event.finish("source", methodName, false);
+		}
+		check.print(methodName);
+		return event.finish("source", methodName, check.isValid());
+	}
 
-		if (methodMatcher.find()) {
+	/**
+	 * This method runs the source checks of many methods of one file in parallel,
+	 * e.g. once from a @BeforeSuite, so the tests only look up the results. It
+	 * is only a warm-up: a file that cannot be read or parsed is logged, and
+	 * each test then reports its own failed check.
+	 * 
+	 * @param filePath - {@link String} .java file location
+	 * @param checks   - {@link Map} of method name to the keywords it must call
+	 * @return {@link Map} of method name to result, empty when the file could not
+	 *         be indexed
+	 */
+	public static Map<String, Boolean> prevalidate(String filePath, Map<String, List<String>> checks) {
+		SourceIndex index;
+		try {
+			index = SourceIndex.of(filePath);
+		} catch (IOException | RuntimeException e) {
+			System.out.println("Source prevalidation skipped for " + filePath + ": " + e);
+			return Collections.<String, Boolean>emptyMap();
+		}
+		Map<String, Boolean> results = new ConcurrentHashMap<String, Boolean>();
+		checks.entrySet().parallelStream().forEach(
+				entry -> results.put(entry.getKey(), check(index, entry.getKey(), entry.getValue()).isValid()));
+		return results;
+	}
 
-			String methodBody = fetchBody(filePath, methodName);
+	// This method takes the method name as an argument and returns its body as a
+	// String.
+	public static String fetchBody(String filePath, String methodName) {
+		try {
+			String body = SourceIndex.of(filePath).body(methodName);
+			return body == null ? "" : body;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return "";
+		}
+	}
 
+	private static SourceCheck check(SourceIndex index, String methodName, List<String> keywords) {
+		return sourceChecks.computeIfAbsent(index.getHash() + '\0' + methodName + '\0' + keywords, key -> {
+			String methodBody = index.body(methodName);
+			if (methodBody == null) {
+				return new SourceCheck(false, Collections.<String>emptyList());
+			}
 			// Now we validate the method body for the required keywords
-			boolean allKeywordsPresent = true;
-
-			// Loop over the provided keywords and check if each one is present in the
-			// method body
+			List<String> missing = new ArrayList<String>();
 			for (String keyword : keywords) {
-				Pattern keywordPattern = Pattern.compile("\\b" + keyword + "\\s*\\(");
+				Pattern keywordPattern = keywordPatterns.computeIfAbsent(keyword,
+						k -> Pattern.compile("\\b" + Pattern.quote(k) + "\\s*\\("));
 				if (!keywordPattern.matcher(methodBody).find()) {
-					System.out.println("'" + keyword + "()' is missing in the method.");
-					allKeywordsPresent = false;
+					missing.add(keyword);
 				}
 			}
+			return new SourceCheck(true, Collections.unmodifiableList(missing));
+		});
+	}
+
+	// Outcome of one source check, immutable so it can be shared between tests
+	private static final class SourceCheck {
 
-			return allKeywordsPresent;
+		private final boolean found;
+		private final List<String> missing;
 
-		} else {
-			System.out.println("Method " + methodName + " not found in the file.");
-			return false;
+		SourceCheck(boolean found, List<String> missing) {
+			this.found = found;
+			this.missing = missing;
 		}
-	}
 
-	// This method takes the method name as an argument and returns its body as a
-	// String.
-	public static String fetchBody(String filePath, String methodName) {
-		StringBuilder methodBody = new StringBuilder();
-		boolean methodFound = false;
-		boolean inMethodBody = false;
-		int openBracesCount = 0;
-
-		try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-			String line;
-			while ((line = br.readLine()) != null) {
-				// Check if the method is found by matching method signature
-				if (line.contains("public CustomResponse " + methodName + "(")
-						|| line.contains("public String " + methodName + "(")
-						|| line.contains("public Response " + methodName + "(")) {
-					methodFound = true;
-				}
+		boolean isValid() {
+			return found && missing.isEmpty();
+		}
 
-				// Once the method is found, start capturing lines
-				if (methodFound) {
-					if (line.contains("{")) {
-						inMethodBody = true;
-						openBracesCount++;
-					}
-
-					// Capture the method body
-					if (inMethodBody) {
-						methodBody.append(line).append("\n");
-					}
-
-					// Check for closing braces to identify the end of the method
-					if (line.contains("}")) {
-						openBracesCount--;
-						if (openBracesCount == 0) {
-							break; // End of method body
-						}
-					}
-				}
+		void print(String methodName) {
+			if (!found) {
+				System.out.println("Method " + methodName + " not found in the file.");
+			}
+			for (String keyword : missing) {
+				System.out.println("'" + keyword + "()' is missing in the method.");
 			}
-		} catch (IOException e) {
-			e.printStackTrace();
 		}
-
-		return methodBody.toString();
 	}
 
 	public static boolean validateResponseFields(String methodName, CustomResponse customResponse) {
+		CodeValidationEvent event = new CodeValidationEvent();
+		event.begin();
 		boolean isValid = true;
 
 		switch (methodName) {
@@ -104,9 +129,6 @@ public class TestCodeValidator {
 			// List of fields to check at the top level
 			List<String> expectedTopLevelFields = List.of("Status");
 
-			// Print the response for debugging
-			System.out.println(customResponse.getResponse().prettyPrint());
-
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields) {
 				if (customResponse.getResponse().jsonPath().get(field) == null) {
@@ -135,9 +157,6 @@ public class TestCodeValidator {
 			// List of fields to check at the top level
 			List<String> expectedTopLevelFields1 = List.of("Status");
 
-			// Print the response for debugging
-			System.out.println(customResponse.getResponse().prettyPrint());
-
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields1) {
 				if (customResponse.getResponse().jsonPath().get(field) == null) {
@@ -165,9 +184,6 @@ public class TestCodeValidator {
 			// List of fields to check at the top level
 			List<String> expectedTopLevelFields11 = List.of("Status");
 
-			// Print the response for debugging
-			System.out.println(customResponse.getResponse().prettyPrint());
-
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields11) {
 				if (customResponse.getResponse().jsonPath().get(field) == null) {
@@ -196,9 +212,6 @@ public class TestCodeValidator {
 			// List of fields to check at the top level
 			List<String> expectedTopLevelFields111 = List.of("Status");
 
-			// Print the response for debugging
-			System.out.println(customResponse.getResponse().prettyPrint());
-
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields111) {
 				if (customResponse.getResponse().jsonPath().get(field) == null) {
@@ -227,9 +240,6 @@ public class TestCodeValidator {
 			// List of fields to check at the top level
 			List<String> expectedTopLevelFields1111 = List.of("Status");
 
-			// Print the response for debugging
-			System.out.println(customResponse.getResponse().prettyPrint());
-
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields1111) {
 				if (customResponse.getResponse().jsonPath().get(field) == null) {
@@ -265,9 +275,6 @@ public class TestCodeValidator {
 			// List of fields to check at the top level
 			List<String> expectedTopLevelFields11111 = List.of("Status");
 
-			// Print the response for debugging
-			System.out.println(customResponse.getResponse().prettyPrint());
-
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields11111) {
 				if (customResponse.getResponse().jsonPath().get(field) == null) {
@@ -304,9 +311,6 @@ public class TestCodeValidator {
 			// List of fields to check at the top level
 			List<String> expectedTopLevelFie = List.of("Status");
 
-			// Print the response for debugging
-			System.out.println(customResponse.getResponse().prettyPrint());
-
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFie) {
 				if (customResponse.getResponse().jsonPath().get(field) == null) {
@@ -340,9 +344,6 @@ public class TestCodeValidator {
 			// List of fields to check at the top level
 			List<String> expectedTopLevelFields1a = List.of("Status");
 
-			// Print the response for debugging
-			System.out.println(customResponse.getResponse().prettyPrint());
-
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields1a) {
 				if (customResponse.getResponse().jsonPath().get(field) == null) {
@@ -376,9 +377,6 @@ public class TestCodeValidator {
 			// List of fields to check at the top level
 			List<String> expectedTopLevel = List.of("Status");
 
-			// Print the response for debugging
-			System.out.println(customResponse.getResponse().prettyPrint());
-
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevel) {
 				if (customResponse.getResponse().jsonPath().get(field) == null) {
@@ -416,9 +414,6 @@ public class TestCodeValidator {
 			// List of fields to check at the top level
 			List<String> e = List.of("Status");
 
-			// Print the response for debugging
-			System.out.println(customResponse.getResponse().prettyPrint());
-
 			// Validate the response structure for required top-level fields
 			for (String field : e) {
 				if (customResponse.getResponse().jsonPath().get(field) == null) {
@@ -462,9 +457,6 @@ public class TestCodeValidator {
 			// List of fields to check at the top level
 			List<String> expected11 = List.of("Status");
 
-			// Print the response for debugging
-			System.out.println(customResponse.getResponse().prettyPrint());
-
 			// Validate the response structure for required top-level fields
 			for (String field : expected11) {
 				if (customResponse.getResponse().jsonPath().get(field) == null) {
@@ -499,9 +491,6 @@ public class TestCodeValidator {
 			// List of fields to check at the top level
 			List<String> expec12 = List.of("Status");
 
-			// Print the response for debugging
-			System.out.println(customResponse.getResponse().prettyPrint());
-
 			// Validate the response structure for required top-level fields
 			for (String field : expec12) {
 				if (customResponse.getResponse().jsonPath().get(field) == null) {
@@ -538,9 +527,6 @@ public class TestCodeValidator {
 			// List of fields to check at the top level
 			List<String> expected13 = List.of("Status");
 
-			// Print the response for debugging
-			System.out.println(customResponse.getResponse().prettyPrint());
-
 			// Validate the response structure for required top-level fields
 			for (String field : expected13) {
 				if (customResponse.getResponse().jsonPath().get(field) == null) {
@@ -580,9 +566,6 @@ public class TestCodeValidator {
 			// List of fields to check at the top level
 			List<String> expectedTopLevelFields14 = List.of("Status");
 
-			// Print the response for debugging
-			System.out.println(customResponse.getResponse().prettyPrint());
-
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields14) {
 				if (customResponse.getResponse().jsonPath().get(field) == null) {
@@ -619,9 +602,6 @@ public class TestCodeValidator {
 			// List of fields to check at the top level
 			List<String> expectedTopLevelFields15 = List.of("Status");
 
-			// Print the response for debugging
-			System.out.println(customResponse.getResponse().prettyPrint());
-
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields15) {
 				if (customResponse.getResponse().jsonPath().get(field) == null) {
@@ -659,9 +639,6 @@ public class TestCodeValidator {
 			// List of fields to check at the top level
 			List<String> expectedTopLevelFields16 = List.of("Status");
 
-			// Print the response for debugging
-			System.out.println(customResponse.getResponse().prettyPrint());
-
 			// Validate the response structure for required top-level fields
 			for (String field : expectedTopLevelFields16) {
 				if (customResponse.getResponse().jsonPath().get(field) == null) {
@@ -700,7 +677,7 @@ public class TestCodeValidator {
 			System.out.println("Method " + methodName + " is not recognized for validation.");
 			isValid = false;
 		}
-		return isValid;
+		return event.finish("response", methodName, isValid);
 	}
 
 }
\ No newline at end of file